@@ -0,0 +1,167 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.bench;
+
+import java.util.Random;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Generators for synthetic graphs used in benchmarks. Vertices are the integers 0..n-1, edges are numbered consecutively.
+ * All generators are deterministic for a given seed.
+ * @author jens dietrich
+ */
+public class GraphGenerators {
+
+	public enum Type {
+		ERDOS_RENYI, PREFERENTIAL_ATTACHMENT, PLANTED_PARTITION, CHAIN
+	}
+
+	/**
+	 * Generate a graph.
+	 * @param type the type of graph
+	 * @param size the number of vertices
+	 * @param averageDegree the average (total) degree, ignored for chains
+	 * @param modules the number of planted modules, only used for planted partitions
+	 * @param seed
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> generate(Type type,int size,int averageDegree,int modules,long seed) {
+		switch (type) {
+			case ERDOS_RENYI: return erdosRenyi(size,averageDegree,seed);
+			case PREFERENTIAL_ATTACHMENT: return preferentialAttachment(size,Math.max(1,averageDegree/2),seed);
+			case PLANTED_PARTITION: return plantedPartition(size,modules,averageDegree,0.9,seed);
+			default: return chain(size);
+		}
+	}
+
+	/**
+	 * Random graph with n*averageDegree/2 edges between uniformly chosen vertices (G(n,m) model).
+	 * Self loops and parallel edges are rejected.
+	 * @param n
+	 * @param averageDegree
+	 * @param seed
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> erdosRenyi(int n,int averageDegree,long seed) {
+		DirectedGraph<Integer,Integer> g = createGraph(n);
+		Random random = new Random(seed);
+		long m = (long)n*averageDegree/2;
+		int edges = 0;
+		while (edges<m) {
+			int v1 = random.nextInt(n);
+			int v2 = random.nextInt(n);
+			if (v1!=v2 && g.findEdge(v1,v2)==null) {
+				g.addEdge(edges++,v1,v2);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Scale free graph generated by preferential attachment (Barabasi-Albert model).
+	 * Each new vertex links to edgesPerVertex existing vertices, chosen with probability proportional to their degree.
+	 * @param n
+	 * @param edgesPerVertex
+	 * @param seed
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> preferentialAttachment(int n,int edgesPerVertex,long seed) {
+		DirectedGraph<Integer,Integer> g = createGraph(n);
+		Random random = new Random(seed);
+		// each edge end point is recorded, sampling from this array is sampling proportional to degree
+		int[] endpoints = new int[2*n*edgesPerVertex];
+		int endpointCount = 0;
+		int edges = 0;
+		for (int v=1;v<n;v++) {
+			int links = Math.min(v,edgesPerVertex);
+			for (int i=0;i<links;i++) {
+				int target = endpointCount==0?0:endpoints[random.nextInt(endpointCount)];
+				if (target!=v && g.findEdge(v,target)==null) {
+					g.addEdge(edges++,v,target);
+					endpoints[endpointCount++] = v;
+					endpoints[endpointCount++] = target;
+				}
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Graph with planted modules: vertex v is in module v % modules, and a fraction of the edges
+	 * (given by internalRatio) is placed inside modules.
+	 * Use moduleMembership(modules) to obtain the planted partition.
+	 * @param n
+	 * @param modules
+	 * @param averageDegree
+	 * @param internalRatio
+	 * @param seed
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> plantedPartition(int n,int modules,int averageDegree,double internalRatio,long seed) {
+		DirectedGraph<Integer,Integer> g = createGraph(n);
+		Random random = new Random(seed);
+		long m = (long)n*averageDegree/2;
+		int moduleSize = Math.max(1,n/modules);
+		int edges = 0;
+		while (edges<m) {
+			int v1 = random.nextInt(n);
+			int v2;
+			if (random.nextDouble()<internalRatio) {
+				// pick a vertex from the same module
+				v2 = random.nextInt(moduleSize)*modules + v1%modules;
+				if (v2>=n) continue;
+			}
+			else {
+				v2 = random.nextInt(n);
+			}
+			if (v1!=v2 && g.findEdge(v1,v2)==null) {
+				g.addEdge(edges++,v1,v2);
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * A path 0 -> 1 -> .. -> n-1, the worst case for the depth of depth first searches.
+	 * @param n
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> chain(int n) {
+		DirectedGraph<Integer,Integer> g = createGraph(n);
+		for (int v=0;v<n-1;v++) {
+			g.addEdge(v,v,v+1);
+		}
+		return g;
+	}
+
+	/**
+	 * Module membership v -> v % modules.
+	 * @param modules
+	 * @return
+	 */
+	public static Transformer<Integer,Integer> moduleMembership(final int modules) {
+		return new Transformer<Integer,Integer>() {
+			@Override
+			public Integer transform(Integer v) {
+				return v%modules;
+			}
+		};
+	}
+
+	private static DirectedGraph<Integer,Integer> createGraph(int n) {
+		DirectedGraph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		for (int v=0;v<n;v++) {
+			g.addVertex(v);
+		}
+		return g;
+	}
+}
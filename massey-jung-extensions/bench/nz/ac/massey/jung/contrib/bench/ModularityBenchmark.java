@@ -0,0 +1,81 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.bench;
+
+import java.util.concurrent.TimeUnit;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Transformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.uci.ics.jung.graph.DirectedGraph;
+
+/**
+ * Benchmarks for the modularity metrics.
+ * Build and run them with bench/build.xml.
+ * @author jens dietrich
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(1)
+public class ModularityBenchmark {
+
+	@Param({"1000","10000","100000","1000000"})
+	public int size;
+
+	@Param({"ERDOS_RENYI","PREFERENTIAL_ATTACHMENT","PLANTED_PARTITION","CHAIN"})
+	public GraphGenerators.Type type;
+
+	private DirectedGraph<Integer,Integer> graph = null;
+	private CompactGraph<Integer,Integer> snapshot = null;
+	private Transformer<Integer,Integer> moduleMembership = null;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		graph = GraphGenerators.generate(type,size,8,32,42);
+		snapshot = new CompactGraph<Integer,Integer>(graph);
+		moduleMembership = GraphGenerators.moduleMembership(32);
+		// computeModularity and computeModularityOnSnapshot compute the same value, they only differ in how the edges are traversed
+		double q1 = Modularity.computeModularity(graph,moduleMembership);
+		double q2 = Modularity.computeModularity(snapshot,moduleMembership);
+		if (Math.abs(q1-q2)>1e-9) {
+			throw new IllegalStateException("Modularity of the graph (" + q1 + ") and the snapshot (" + q2 + ") differ");
+		}
+	}
+
+	@Benchmark
+	public double computeModularity() {
+		return Modularity.computeModularity(graph,moduleMembership);
+	}
+
+	@Benchmark
+	public double computeScaledModularity() {
+		return Modularity.computeScaledModularity(graph,moduleMembership);
+	}
+
+	@Benchmark
+	public double computeModularityOnSnapshot() {
+		return Modularity.computeModularity(snapshot,moduleMembership);
+	}
+
+}
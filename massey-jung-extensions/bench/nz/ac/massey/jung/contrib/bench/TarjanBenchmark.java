@@ -0,0 +1,67 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.bench;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjanClusterer;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import edu.uci.ics.jung.graph.DirectedGraph;
+
+/**
+ * Benchmarks for the strongly connected component algorithms.
+ * @author jens dietrich
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations=3)
+@Measurement(iterations=5)
+@Fork(value=1,jvmArgs={"-Xss1m","-Xmx8g"})
+public class TarjanBenchmark {
+
+	@Param({"1000","10000","100000","1000000"})
+	public int size;
+
+	@Param({"ERDOS_RENYI","PREFERENTIAL_ATTACHMENT","PLANTED_PARTITION","CHAIN"})
+	public GraphGenerators.Type type;
+
+	private DirectedGraph<Integer,Integer> graph = null;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		graph = GraphGenerators.generate(type,size,8,32,42);
+	}
+
+	@Benchmark
+	public Object buildComponentGraph() {
+		TarjansAlgorithm<Integer,Integer> algorithm = new TarjansAlgorithm<Integer,Integer>();
+		algorithm.buildComponentGraph(graph,null);
+		return algorithm.getComponentGraph();
+	}
+
+	@Benchmark
+	public Set<Set<Integer>> tarjanClusterer() {
+		return new TarjanClusterer<Integer,Integer>().transform(graph);
+	}
+
+}
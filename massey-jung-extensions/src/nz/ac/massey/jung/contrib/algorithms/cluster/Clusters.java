@@ -0,0 +1,65 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+
+/**
+ * Utilities shared by the clusterers that compute dense int cluster ids.
+ * @author jens dietrich
+ */
+class Clusters {
+
+	/**
+	 * Renumber cluster ids so that they are dense, in order of first occurrence.
+	 * @param ids the cluster ids, will be overridden
+	 * @return the number of clusters
+	 */
+	static int renumber(int[] ids) {
+		int max = -1;
+		for (int id:ids) {
+			if (id>max) max = id;
+		}
+		int[] newIds = new int[max+1];
+		Arrays.fill(newIds,-1);
+		int count = 0;
+		for (int i=0;i<ids.length;i++) {
+			int id = ids[i];
+			if (newIds[id]==-1) {
+				newIds[id] = count++;
+			}
+			ids[i] = newIds[id];
+		}
+		return count;
+	}
+
+	/**
+	 * Convert dense cluster ids into sets of vertices.
+	 * @param g the graph snapshot used to compute the ids
+	 * @param ids the cluster id for each vertex id
+	 * @param count the number of clusters
+	 * @return
+	 */
+	static <V> Set<Set<V>> toSets(CompactGraph<V,?> g,int[] ids,int count) {
+		List<Set<V>> clusters = new ArrayList<Set<V>>(count);
+		for (int i=0;i<count;i++) {
+			clusters.add(new HashSet<V>());
+		}
+		for (int v=0;v<ids.length;v++) {
+			clusters.get(ids[v]).add(g.getVertex(v));
+		}
+		return new HashSet<Set<V>>(clusters);
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A (strongly or weakly) connected component. Components are sets of vertices that cannot be modified by clients,
+ * and the hash code is computed only once. This matters as components are used as vertices in condensation graphs,
+ * the hash code of an ordinary set is computed from all its members each time it is used as a key.
+ * @author jens dietrich
+ * @param <V>
+ */
+class Component<V> extends AbstractSet<V> {
+
+	final int id;
+	private Set<V> members = new HashSet<V>();
+	private int hashCode = 0;
+	private boolean hashed = false;
+
+	Component(int id) {
+		super();
+		this.id = id;
+	}
+
+	void addMember(V v) {
+		members.add(v);
+		hashed = false;
+	}
+
+	@Override
+	public Iterator<V> iterator() {
+		return Collections.unmodifiableSet(members).iterator();
+	}
+
+	@Override
+	public int size() {
+		return members.size();
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return members.contains(o);
+	}
+
+	@Override
+	public int hashCode() {
+		if (!hashed) {
+			hashCode = members.hashCode();
+			hashed = true;
+		}
+		return hashCode;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.Arrays;
+import nz.ac.massey.jung.contrib.io.MappedIntArray;
+import nz.ac.massey.jung.contrib.io.MappedLongArray;
+
+/**
+ * Tarjan's algorithm on graphs in compressed sparse row form.
+ * The arrays used by the depth first search are kept between searches, and only replaced when a larger graph is searched.
+ * Repeated searches on graphs of similar size therefore do not allocate memory.
+ * Instances are not thread-safe.
+ * @author jens dietrich
+ */
+class ComponentSearch {
+
+	/**
+	 * Access to the out edges of a graph in compressed sparse row form.
+	 * The out edges of vertex v are at positions getOffset(v) .. getOffset(v+1)-1.
+	 */
+	interface Adjacency {
+		long getOffset(int v);
+		int getTarget(long position);
+	}
+
+	private int[] indices = new int[0];
+	private int[] lowlinks = new int[0];
+	private int[] stack = new int[0];
+	private boolean[] onStack = new boolean[0];
+	// the explicit dfs stack: vertices currently being visited, the position of the next out edge to explore and the end of their out edges
+	// positions are longs, the number of edges of graphs in mapped files may exceed the int range
+	private int[] path = new int[0];
+	private long[] pathEdges = new long[0];
+	private long[] pathEnds = new long[0];
+	// the max number of vertices on the path during the last search
+	private int maxDepth = 0;
+
+	/**
+	 * Get an array with at least the given size. The array is returned if it is large enough, otherwise a new array is allocated.
+	 * New arrays are larger than requested, so that a sequence of slowly growing requests does not allocate each time.
+	 * The content of the array is undefined.
+	 * @param array
+	 * @param size
+	 * @return
+	 */
+	static int[] ensureCapacity(int[] array,int size) {
+		if (array!=null && array.length>=size) {
+			return array;
+		}
+		return new int[Math.max(size,array==null?0:2*array.length)];
+	}
+
+	/**
+	 * Compute the strongly connected components of a graph given in compressed sparse row form.
+	 * Components are numbered in the order in which they are completed, this is a reverse topological order.
+	 * @param vertexCount the number of vertices
+	 * @param offsets the out edges of vertex v are at positions offsets[v] .. offsets[v+1]-1 in targets
+	 * @param targets the targets of the out edges
+	 * @param componentIds the array to store the component id of each vertex in
+	 * @return the number of components
+	 */
+	int search(int vertexCount,final int[] offsets,final int[] targets,int[] componentIds) {
+		return search(vertexCount,new Adjacency() {
+			@Override
+			public long getOffset(int v) {
+				return offsets[v];
+			}
+			@Override
+			public int getTarget(long position) {
+				return targets[(int)position];
+			}
+		},componentIds);
+	}
+
+	/**
+	 * Compute the strongly connected components of a graph stored in a mapped file.
+	 * @param vertexCount the number of vertices
+	 * @param offsets the out edges of vertex v are at positions offsets[v] .. offsets[v+1]-1 in targets
+	 * @param targets the targets of the out edges
+	 * @param componentIds the array to store the component id of each vertex in
+	 * @return the number of components
+	 * @see #search(int, int[], int[], int[])
+	 */
+	int search(int vertexCount,final MappedLongArray offsets,final MappedIntArray targets,int[] componentIds) {
+		return search(vertexCount,new Adjacency() {
+			@Override
+			public long getOffset(int v) {
+				return offsets.get(v);
+			}
+			@Override
+			public int getTarget(long position) {
+				return targets.get(position);
+			}
+		},componentIds);
+	}
+
+	// the depth first search used for both representations
+	private int search(int vertexCount,Adjacency adjacency,int[] componentIds) {
+		prepare(vertexCount);
+		int index = 0;
+		int stackSize = 0;
+		int componentCount = 0;
+
+		for (int root=0;root<vertexCount;root++) {
+			if (indices[root]!=-1) continue;
+			int depth = 0;
+			path[0] = root;
+			pathEdges[0] = adjacency.getOffset(root);
+			pathEnds[0] = adjacency.getOffset(root+1);
+			indices[root] = index;
+			lowlinks[root] = index;
+			index = index+1;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			maxDepth = Math.max(maxDepth,1);
+
+			while (depth>=0) {
+				int v = path[depth];
+				if (pathEdges[depth]<pathEnds[depth]) {
+					int next = adjacency.getTarget(pathEdges[depth]++);
+					if (indices[next]==-1) {
+						depth = depth+1;
+						path[depth] = next;
+						pathEdges[depth] = adjacency.getOffset(next);
+						pathEnds[depth] = adjacency.getOffset(next+1);
+						indices[next] = index;
+						lowlinks[next] = index;
+						index = index+1;
+						stack[stackSize++] = next;
+						onStack[next] = true;
+						maxDepth = Math.max(maxDepth,depth+1);
+					} else if (onStack[next]) {
+						lowlinks[v] = Math.min(lowlinks[v],indices[next]);
+					}
+				}
+				else {
+					// build new component
+					if (lowlinks[v]==indices[v]) {
+						int v2;
+						do {
+							v2 = stack[--stackSize];
+							onStack[v2] = false;
+							componentIds[v2] = componentCount;
+						} while (v2!=v);
+						componentCount = componentCount+1;
+					}
+					depth = depth-1;
+					if (depth>=0) {
+						int parent = path[depth];
+						lowlinks[parent] = Math.min(lowlinks[parent],lowlinks[v]);
+					}
+				}
+			}
+		}
+		return componentCount;
+	}
+
+	// grow the arrays if necessary, and mark all vertices as not visited
+	private void prepare(int vertexCount) {
+		if (indices.length<vertexCount) {
+			int capacity = Math.max(vertexCount,2*indices.length);
+			indices = new int[capacity];
+			lowlinks = new int[capacity];
+			stack = new int[capacity];
+			onStack = new boolean[capacity];
+			path = new int[capacity];
+			pathEdges = new long[capacity];
+			pathEnds = new long[capacity];
+		}
+		// onStack is false for all vertices after each search
+		Arrays.fill(indices,0,vertexCount,-1);
+		maxDepth = 0;
+	}
+
+	/**
+	 * Get the peak depth of the last search, i.e. the max number of vertices on the path of the depth first search.
+	 * This is the depth the recursion would have reached in a recursive implementation.
+	 * @return
+	 */
+	int getMaxDepth() {
+		return maxDepth;
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Compact representation of a condensation graph, i.e. the graph of the strongly connected components of a graph.
+ * Components have int ids 0..n-1. There is an edge from component c1 to component c2 if there is at least one edge
+ * from a vertex in c1 to a vertex in c2 (c1!=c2). Parallel edges are merged, and (optionally) the number of
+ * merged edges is recorded as multiplicity. Edges within components are not represented.
+ * Edges are stored in compressed sparse row (CSR) form: the successors of component c are
+ * targets[offsets[c]] .. targets[offsets[c+1]-1], in ascending order.
+ * A jung graph is only built if requested by calling asGraph().
+ * The arrays returned by the getters are the internal arrays, and must not be modified.
+ * @author jens dietrich
+ * @param <V>
+ */
+public class Condensation<V> {
+
+	private List<Set<V>> components = null;
+	private int[] offsets = null;
+	private int[] targets = null;
+	private int[] multiplicities = null;
+	private DirectedGraph<Set<V>,Integer> graph = null;
+
+	/**
+	 * Build a condensation.
+	 * @param components the components, indexed by id
+	 * @param sources the ids of the source components of the edges
+	 * @param targets the ids of the target components of the edges
+	 * @param edgeCount the number of edges, only this many values in sources and targets are used
+	 * @param countMultiplicities whether to count the edges merged into each condensation edge
+	 */
+	Condensation(List<Set<V>> components,int[] sources,int[] targets,int edgeCount,boolean countMultiplicities) {
+		super();
+		this.components = components;
+		int componentCount = components.size();
+
+		// bucket the targets by source component, skipping edges within components
+		int[] start = new int[componentCount+1];
+		for (int e=0;e<edgeCount;e++) {
+			if (sources[e]!=targets[e]) {
+				start[sources[e]+1] = start[sources[e]+1]+1;
+			}
+		}
+		for (int c=0;c<componentCount;c++) {
+			start[c+1] = start[c+1]+start[c];
+		}
+		int[] buffer = new int[start[componentCount]];
+		int[] next = Arrays.copyOf(start,componentCount);
+		for (int e=0;e<edgeCount;e++) {
+			if (sources[e]!=targets[e]) {
+				buffer[next[sources[e]]++] = targets[e];
+			}
+		}
+
+		// sort the targets of each component and remove duplicates, compacting the buffer in place
+		int[] counts = countMultiplicities?new int[buffer.length]:null;
+		this.offsets = new int[componentCount+1];
+		int size = 0;
+		for (int c=0;c<componentCount;c++) {
+			offsets[c] = size;
+			Arrays.sort(buffer,start[c],start[c+1]);
+			for (int i=start[c];i<start[c+1];i++) {
+				if (size>offsets[c] && buffer[size-1]==buffer[i]) {
+					if (counts!=null) counts[size-1] = counts[size-1]+1;
+				}
+				else {
+					buffer[size] = buffer[i];
+					if (counts!=null) counts[size] = 1;
+					size = size+1;
+				}
+			}
+		}
+		offsets[componentCount] = size;
+		this.targets = Arrays.copyOf(buffer,size);
+		this.multiplicities = counts==null?null:Arrays.copyOf(counts,size);
+	}
+
+	public int getComponentCount() {
+		return components.size();
+	}
+
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Get the component with the given id.
+	 * @param id
+	 * @return
+	 */
+	public Set<V> getComponent(int id) {
+		return components.get(id);
+	}
+
+	/**
+	 * Get the components, the position of a component in this list is its id.
+	 * @return
+	 */
+	public List<Set<V>> getComponents() {
+		return Collections.unmodifiableList(components);
+	}
+
+	public int[] getOffsets() {
+		return offsets;
+	}
+
+	public int[] getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Get the number of edges merged into each condensation edge, indexed like getTargets().
+	 * @return the multiplicities, or null if multiplicities have not been counted
+	 */
+	public int[] getMultiplicities() {
+		return multiplicities;
+	}
+
+	public int outDegree(int component) {
+		return offsets[component+1]-offsets[component];
+	}
+
+	/**
+	 * Get the condensation as jung graph. The graph is built when this method is first called.
+	 * Edges are the positions of the respective edges in getTargets().
+	 * @return
+	 */
+	public DirectedGraph<Set<V>,Integer> asGraph() {
+		if (graph==null) {
+			DirectedGraph<Set<V>,Integer> g = new DirectedSparseGraph<Set<V>,Integer>();
+			for (Set<V> component:components) {
+				g.addVertex(component);
+			}
+			for (int c=0;c<components.size();c++) {
+				for (int i=offsets[c];i<offsets[c+1];i++) {
+					g.addEdge(i,components.get(c),components.get(targets[i]));
+				}
+			}
+			graph = g;
+		}
+		return graph;
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.collections15.Predicate;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Strongly connected components that are maintained while edges are added and removed.
+ * The components are computed once when the instance is created, then updated incrementally:
+ * <ul>
+ * <li>Adding an edge between two components that closes a cycle in the component graph merges all components
+ * on this cycle. To detect the cycle, the component graph is searched forward from the target and backward from the source
+ * in alternating steps, the search stops when one side is exhausted. The cost of adding an edge is therefore bounded by
+ * the smaller of the part of the component graph reachable from the target and the part that can reach the source
+ * (in the worst case, this is the entire component graph). Only if a cycle is found, all components reachable from the target are searched.</li>
+ * <li>Removing an edge within a component may split this component. Tarjan's algorithm is run only on the vertices of
+ * this component, unless a parallel edge remains.</li>
+ * <li>Adding an edge that does not close a cycle and removing an edge between components only changes the component graph.</li>
+ * </ul>
+ * The component graph has at most one edge between two components, and no loops. It is updated in place, components that
+ * are merged or split are replaced by new component objects.
+ * Like ModularityTracker, this class maintains its own adjacency, it is not notified about changes of the graph it was seeded from.
+ * @author jens dietrich
+ * @param <V>
+ */
+public class DynamicComponents<V> {
+
+	// successors and predecessors, with the number of parallel edges
+	private Map<V,Map<V,Integer>> successors = new HashMap<V,Map<V,Integer>>();
+	private Map<V,Map<V,Integer>> predecessors = new HashMap<V,Map<V,Integer>>();
+	private Map<V,Component<V>> componentMembership = new HashMap<V,Component<V>>();
+	// edges between components, with the number of edges between their vertices
+	private Map<Component<V>,Map<Component<V>,Integer>> componentSuccessors = new HashMap<Component<V>,Map<Component<V>,Integer>>();
+	private Map<Component<V>,Map<Component<V>,Integer>> componentPredecessors = new HashMap<Component<V>,Map<Component<V>,Integer>>();
+	private DirectedGraph<Set<V>,Integer> componentGraph = new DirectedSparseGraph<Set<V>,Integer>();
+	private int nextComponentId = 0;
+	private int nextEdgeId = 0;
+	// buffers used when components are recomputed
+	private ComponentSearch search = new ComponentSearch();
+	private int[] offsetBuffer = null;
+	private int[] targetBuffer = null;
+	private int[] componentIdBuffer = null;
+
+	/**
+	 * Seed the components from a graph.
+	 * @param g
+	 */
+	public <E> DynamicComponents(Graph<V,E> g) {
+		this(g,null);
+	}
+
+	/**
+	 * Seed the components from a graph. Only edges accepted by the filter are used.
+	 * @param g
+	 * @param edgeFilter a filter, or null if all edges are to be used
+	 */
+	public <E> DynamicComponents(Graph<V,E> g,Predicate<E> edgeFilter) {
+		super();
+		for (V v:g.getVertices()) {
+			successors.put(v,new HashMap<V,Integer>());
+			predecessors.put(v,new HashMap<V,Integer>());
+		}
+		for (E e:g.getEdges()) {
+			if (edgeFilter==null || edgeFilter.evaluate(e)) {
+				Pair<V> endpoints = g.getEndpoints(e);
+				link(endpoints.getFirst(),endpoints.getSecond());
+				if (g.getEdgeType(e)==EdgeType.UNDIRECTED && !endpoints.getFirst().equals(endpoints.getSecond())) {
+					link(endpoints.getSecond(),endpoints.getFirst());
+				}
+			}
+		}
+		List<Component<V>> none = Collections.emptyList();
+		recompute(successors.keySet(),none);
+	}
+
+	/**
+	 * Add a vertex, the vertex forms a new component.
+	 * @param v
+	 * @return false if the vertex already exists
+	 */
+	public boolean addVertex(V v) {
+		if (successors.containsKey(v)) {
+			return false;
+		}
+		successors.put(v,new HashMap<V,Integer>());
+		predecessors.put(v,new HashMap<V,Integer>());
+		Component<V> component = new Component<V>(nextComponentId++);
+		component.addMember(v);
+		addComponent(component);
+		return true;
+	}
+
+	/**
+	 * Add an edge. Vertices that do not yet exist are added.
+	 * @param source
+	 * @param target
+	 */
+	public void addEdge(V source,V target) {
+		addVertex(source);
+		addVertex(target);
+		link(source,target);
+		Component<V> sourceComponent = componentMembership.get(source);
+		Component<V> targetComponent = componentMembership.get(target);
+		if (sourceComponent==targetComponent) {
+			return;
+		}
+		// the new edge closes a cycle if the source component is reachable from the target component
+		if (reaches(targetComponent,sourceComponent)) {
+			// the components on the cycle are those that are reachable from the target, and can reach the source
+			Set<Component<V>> reachable = search(targetComponent,componentSuccessors,null);
+			Set<Component<V>> cycle = search(sourceComponent,componentPredecessors,reachable);
+			List<V> vertices = new ArrayList<V>();
+			for (Component<V> component:cycle) {
+				vertices.addAll(component);
+			}
+			recompute(vertices,cycle);
+		}
+		else {
+			linkComponents(sourceComponent,targetComponent,1);
+		}
+	}
+
+	/**
+	 * Remove an edge. If there are parallel edges, only one of them is removed.
+	 * @param source
+	 * @param target
+	 * @return false if there is no such edge
+	 */
+	public boolean removeEdge(V source,V target) {
+		Map<V,Integer> targets = successors.get(source);
+		if (targets==null || !targets.containsKey(target)) {
+			return false;
+		}
+		boolean removed = decrement(targets,target,1);
+		decrement(predecessors.get(target),source,1);
+		Component<V> sourceComponent = componentMembership.get(source);
+		Component<V> targetComponent = componentMembership.get(target);
+		if (sourceComponent!=targetComponent) {
+			// the component graph counts parallel edges
+			unlinkComponents(sourceComponent,targetComponent);
+		}
+		else if (removed && !source.equals(target)) {
+			// the component may split, unless a parallel edge remains
+			recompute(new ArrayList<V>(sourceComponent),Collections.singletonList(sourceComponent));
+		}
+		return true;
+	}
+
+	public Map<V,Set<V>> getComponentMembership() {
+		return Collections.<V,Set<V>>unmodifiableMap(componentMembership);
+	}
+
+	/**
+	 * Get the component graph. This graph is updated when edges are added or removed, and must not be modified by clients.
+	 * @return
+	 */
+	public DirectedGraph<Set<V>,Integer> getComponentGraph() {
+		return componentGraph;
+	}
+
+	public int getComponentCount() {
+		return componentGraph.getVertexCount();
+	}
+
+	private void link(V source,V target) {
+		increment(successors.get(source),target,1);
+		increment(predecessors.get(target),source,1);
+	}
+
+	private <T> void increment(Map<T,Integer> counts,T key,int n) {
+		Integer count = counts.get(key);
+		counts.put(key,count==null?n:count+n);
+	}
+
+	// returns true if the count has dropped to 0, and the key has been removed
+	private <T> boolean decrement(Map<T,Integer> counts,T key,int n) {
+		int count = counts.get(key)-n;
+		if (count==0) {
+			counts.remove(key);
+			return true;
+		}
+		counts.put(key,count);
+		return false;
+	}
+
+	private void linkComponents(Component<V> source,Component<V> target,int n) {
+		Map<Component<V>,Integer> targets = componentSuccessors.get(source);
+		if (!targets.containsKey(target)) {
+			componentGraph.addEdge(nextEdgeId++,source,target);
+		}
+		increment(targets,target,n);
+		increment(componentPredecessors.get(target),source,n);
+	}
+
+	private void unlinkComponents(Component<V> source,Component<V> target) {
+		decrement(componentPredecessors.get(target),source,1);
+		if (decrement(componentSuccessors.get(source),target,1)) {
+			componentGraph.removeEdge(componentGraph.findEdge(source,target));
+		}
+	}
+
+	private void addComponent(Component<V> component) {
+		for (V v:component) {
+			componentMembership.put(v,component);
+		}
+		componentSuccessors.put(component,new HashMap<Component<V>,Integer>());
+		componentPredecessors.put(component,new HashMap<Component<V>,Integer>());
+		componentGraph.addVertex(component);
+	}
+
+	private void removeComponent(Component<V> component) {
+		for (Component<V> target:componentSuccessors.remove(component).keySet()) {
+			componentPredecessors.get(target).remove(component);
+		}
+		for (Component<V> source:componentPredecessors.remove(component).keySet()) {
+			componentSuccessors.get(source).remove(component);
+		}
+		componentGraph.removeVertex(component);
+	}
+
+	// depth first search in the component graph, only components in scope are visited (unless scope is null)
+	private Set<Component<V>> search(Component<V> start,Map<Component<V>,Map<Component<V>,Integer>> adjacency,Set<Component<V>> scope) {
+		Set<Component<V>> visited = new HashSet<Component<V>>();
+		List<Component<V>> stack = new ArrayList<Component<V>>();
+		visited.add(start);
+		stack.add(start);
+		while (!stack.isEmpty()) {
+			Component<V> component = stack.remove(stack.size()-1);
+			for (Component<V> next:adjacency.get(component).keySet()) {
+				if ((scope==null || scope.contains(next)) && visited.add(next)) {
+					stack.add(next);
+				}
+			}
+		}
+		return visited;
+	}
+
+	// whether end is reachable from start (start!=end), by alternating steps of a forward search from start and a backward search from end
+	private boolean reaches(Component<V> start,Component<V> end) {
+		Set<Component<V>> forward = new HashSet<Component<V>>();
+		Set<Component<V>> backward = new HashSet<Component<V>>();
+		List<Component<V>> forwardStack = new ArrayList<Component<V>>();
+		List<Component<V>> backwardStack = new ArrayList<Component<V>>();
+		forward.add(start);
+		forwardStack.add(start);
+		backward.add(end);
+		backwardStack.add(end);
+		// if one search is exhausted without meeting the other, there is no path
+		while (!forwardStack.isEmpty() && !backwardStack.isEmpty()) {
+			if (step(forwardStack,forward,backward,componentSuccessors)) return true;
+			if (step(backwardStack,backward,forward,componentPredecessors)) return true;
+		}
+		return false;
+	}
+
+	// expand one component of a search, returns true if a component visited by the other search is found
+	private boolean step(List<Component<V>> stack,Set<Component<V>> visited,Set<Component<V>> other,Map<Component<V>,Map<Component<V>,Integer>> adjacency) {
+		Component<V> component = stack.remove(stack.size()-1);
+		for (Component<V> next:adjacency.get(component).keySet()) {
+			if (other.contains(next)) {
+				return true;
+			}
+			if (visited.add(next)) {
+				stack.add(next);
+			}
+		}
+		return false;
+	}
+
+	// replace components by the components of the subgraph induced by the given vertices
+	private void recompute(Collection<V> vertices,Collection<Component<V>> oldComponents) {
+		// run Tarjan's algorithm on the induced subgraph
+		List<V> localVertices = new ArrayList<V>(vertices);
+		Map<V,Integer> localIds = new HashMap<V,Integer>(localVertices.size()*2);
+		for (int i=0;i<localVertices.size();i++) {
+			localIds.put(localVertices.get(i),i);
+		}
+		offsetBuffer = ComponentSearch.ensureCapacity(offsetBuffer,localVertices.size()+1);
+		int[] offsets = offsetBuffer;
+		offsets[0] = 0;
+		for (int i=0;i<localVertices.size();i++) {
+			offsets[i+1] = offsets[i]+successors.get(localVertices.get(i)).size();
+		}
+		targetBuffer = ComponentSearch.ensureCapacity(targetBuffer,offsets[localVertices.size()]);
+		int[] targets = targetBuffer;
+		for (int i=0;i<localVertices.size();i++) {
+			// successors outside the subgraph are skipped, and the remaining slots point to the vertex itself
+			int position = offsets[i];
+			for (V target:successors.get(localVertices.get(i)).keySet()) {
+				Integer id = localIds.get(target);
+				targets[position++] = id==null?i:id;
+			}
+		}
+		componentIdBuffer = ComponentSearch.ensureCapacity(componentIdBuffer,localVertices.size());
+		int[] componentIds = componentIdBuffer;
+		int componentCount = search.search(localVertices.size(),offsets,targets,componentIds);
+		if (componentCount==1 && oldComponents.size()==1) {
+			// the component has not been split
+			return;
+		}
+		for (Component<V> component:oldComponents) {
+			removeComponent(component);
+		}
+
+		// create new components, their ids are larger than the ids of all existing components
+		int firstId = nextComponentId;
+		List<Component<V>> newComponents = new ArrayList<Component<V>>(componentCount);
+		for (int c=0;c<componentCount;c++) {
+			newComponents.add(new Component<V>(nextComponentId++));
+		}
+		for (int i=0;i<localVertices.size();i++) {
+			newComponents.get(componentIds[i]).addMember(localVertices.get(i));
+		}
+		for (Component<V> component:newComponents) {
+			addComponent(component);
+		}
+
+		// connect new components, edges from old components are only counted once from the in edges
+		for (Component<V> component:newComponents) {
+			for (V v:component) {
+				for (Map.Entry<V,Integer> entry:successors.get(v).entrySet()) {
+					Component<V> target = componentMembership.get(entry.getKey());
+					if (target!=component) linkComponents(component,target,entry.getValue());
+				}
+				for (Map.Entry<V,Integer> entry:predecessors.get(v).entrySet()) {
+					Component<V> source = componentMembership.get(entry.getKey());
+					if (source.id<firstId) linkComponents(source,component,entry.getValue());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Predicate;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Parallel computation of strongly connected components, an alternative to TarjansAlgorithm for very large graphs.
+ * Computes the same components and condensation as TarjansAlgorithm (component ids may differ).
+ * First, vertices without (non loop) in or out edges are trimmed, each of them is a component.
+ * The remaining vertices are processed with the forward-backward algorithm: the vertices reachable from a pivot
+ * and the vertices that can reach the pivot are computed, their intersection is the component of the pivot.
+ * The remaining vertices are partitioned into three sets (reached forward only, backward only, and not at all),
+ * no component spans more than one of these sets. These sets are then processed independently.
+ * Sets are identified by colours, searches only follow edges to vertices with the same colour.
+ * Large sets are processed in rounds, with the forward and backward searches of each set run as parallel tasks.
+ * Small sets are batched, each batch is processed sequentially by one task.
+ * Fleischer, L. K., Hendrickson, B., Pinar, A. (2000), "On identifying strongly connected components in parallel",
+ * Parallel and Distributed Processing, LNCS 1800, 505-511.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class ForwardBackwardAlgorithm<V,E> {
+
+	// sets smaller than this are processed sequentially
+	private static final int SEQUENTIAL_SIZE = 1000;
+	// colour of vertices assigned to a component
+	private static final int DONE = -1;
+
+	private static class Subproblem {
+		final int colour;
+		final int[] vertices;
+		Subproblem(int colour,int[] vertices) {
+			super();
+			this.colour = colour;
+			this.vertices = vertices;
+		}
+	}
+
+	private ExecutorService executor = null;
+	private boolean countMultiplicities = false;
+	private Map<V,Component<V>> componentMembership = new HashMap<V,Component<V>>();
+	private Condensation<V> condensation = null;
+
+	// state used during the computation
+	private int[] outOffsets = null;
+	private int[] outTargets = null;
+	private int[] inOffsets = null;
+	private int[] inSources = null;
+	private int[] colours = null;
+	private int[] forward = null;
+	private int[] backward = null;
+	private int[] representatives = null;
+	private AtomicInteger nextColour = null;
+
+	/**
+	 * Create an instance using the default executor.
+	 */
+	public ForwardBackwardAlgorithm() {
+		this(null,false);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param executor the executor, or null to use the default executor
+	 * @param countMultiplicities whether the condensation records how many edges connect two components
+	 */
+	public ForwardBackwardAlgorithm(ExecutorService executor,boolean countMultiplicities) {
+		super();
+		this.executor = executor;
+		this.countMultiplicities = countMultiplicities;
+	}
+
+	/**
+	 * Build the component graph.
+	 * @param graph
+	 * @param edgeFilter a filter, or null if all edges are to be used
+	 */
+	public void buildComponentGraph(Graph<V,E> graph,Predicate<E> edgeFilter) {
+		buildComponentGraph(new CompactGraph<V,E>(graph,edgeFilter));
+	}
+
+	/**
+	 * Build the component graph from a graph snapshot.
+	 * @param graph
+	 */
+	public void buildComponentGraph(CompactGraph<V,E> graph) {
+		componentMembership.clear();
+		int vertexCount = graph.getVertexCount();
+		this.outOffsets = graph.getOutOffsets();
+		this.outTargets = graph.getOutTargets();
+		this.inOffsets = graph.getInOffsets();
+		this.inSources = graph.getInSources();
+		this.colours = new int[vertexCount];
+		this.forward = new int[vertexCount];
+		this.backward = new int[vertexCount];
+		Arrays.fill(forward,DONE);
+		Arrays.fill(backward,DONE);
+		this.representatives = new int[vertexCount];
+		this.nextColour = new AtomicInteger(1);
+
+		List<Subproblem> subproblems = new ArrayList<Subproblem>();
+		int[] remaining = trim(vertexCount);
+		if (remaining.length>0) {
+			subproblems.add(new Subproblem(0,remaining));
+		}
+		while (!subproblems.isEmpty()) {
+			subproblems = processRound(subproblems);
+		}
+
+		// representatives are vertex ids, renumber them to get dense component ids
+		int[] componentIds = representatives;
+		int componentCount = Clusters.renumber(componentIds);
+		List<Component<V>> components = new ArrayList<Component<V>>(componentCount);
+		for (int c=0;c<componentCount;c++) {
+			components.add(new Component<V>(c));
+		}
+		for (int v=0;v<vertexCount;v++) {
+			Component<V> component = components.get(componentIds[v]);
+			V vertex = graph.getVertex(v);
+			component.addMember(vertex);
+			componentMembership.put(vertex,component);
+		}
+
+		int edgeCount = graph.getEdgeCount();
+		int[] edgeSources = graph.getSources();
+		int[] edgeTargets = graph.getTargets();
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		for (int e=0;e<edgeCount;e++) {
+			sources[e] = componentIds[edgeSources[e]];
+			targets[e] = componentIds[edgeTargets[e]];
+		}
+		this.condensation = new Condensation<V>(new ArrayList<Set<V>>(components),sources,targets,edgeCount,countMultiplicities);
+
+		// release computation state
+		this.outOffsets = null;
+		this.outTargets = null;
+		this.inOffsets = null;
+		this.inSources = null;
+		this.colours = null;
+		this.forward = null;
+		this.backward = null;
+		this.representatives = null;
+	}
+
+	/**
+	 * Get the component graph. The graph is built from the condensation when this method is first called.
+	 * @return
+	 */
+	public DirectedGraph<Set<V>,Integer> getComponentGraph() {
+		return condensation==null?null:condensation.asGraph();
+	}
+
+	/**
+	 * Get the compact representation of the component graph.
+	 * @return
+	 */
+	public Condensation<V> getCondensation() {
+		return condensation;
+	}
+
+	public Map<V,Set<V>> getComponentMembership() {
+		return Collections.<V,Set<V>>unmodifiableMap(componentMembership);
+	}
+
+	// repeatedly remove vertices without in or out edges (ignoring loops), returns the vertices not removed
+	private int[] trim(int vertexCount) {
+		int[] inDegrees = new int[vertexCount];
+		int[] outDegrees = new int[vertexCount];
+		for (int v=0;v<vertexCount;v++) {
+			for (int i=outOffsets[v];i<outOffsets[v+1];i++) {
+				if (outTargets[i]!=v) outDegrees[v] = outDegrees[v]+1;
+			}
+			for (int i=inOffsets[v];i<inOffsets[v+1];i++) {
+				if (inSources[i]!=v) inDegrees[v] = inDegrees[v]+1;
+			}
+		}
+		int[] queue = new int[vertexCount];
+		int head = 0;
+		int tail = 0;
+		for (int v=0;v<vertexCount;v++) {
+			if (inDegrees[v]==0 || outDegrees[v]==0) {
+				colours[v] = DONE;
+				representatives[v] = v;
+				queue[tail++] = v;
+			}
+		}
+		while (head<tail) {
+			int v = queue[head++];
+			for (int i=outOffsets[v];i<outOffsets[v+1];i++) {
+				int w = outTargets[i];
+				if (w!=v && colours[w]!=DONE) {
+					inDegrees[w] = inDegrees[w]-1;
+					if (inDegrees[w]==0) {
+						colours[w] = DONE;
+						representatives[w] = w;
+						queue[tail++] = w;
+					}
+				}
+			}
+			for (int i=inOffsets[v];i<inOffsets[v+1];i++) {
+				int w = inSources[i];
+				if (w!=v && colours[w]!=DONE) {
+					outDegrees[w] = outDegrees[w]-1;
+					if (outDegrees[w]==0) {
+						colours[w] = DONE;
+						representatives[w] = w;
+						queue[tail++] = w;
+					}
+				}
+			}
+		}
+		int[] remaining = new int[vertexCount-tail];
+		int count = 0;
+		for (int v=0;v<vertexCount;v++) {
+			if (colours[v]!=DONE) remaining[count++] = v;
+		}
+		return remaining;
+	}
+
+	// process a round of subproblems in parallel, returns the subproblems for the next round
+	private List<Subproblem> processRound(List<Subproblem> subproblems) {
+		List<Subproblem> large = new ArrayList<Subproblem>();
+		List<Callable<List<Subproblem>>> searchTasks = new ArrayList<Callable<List<Subproblem>>>();
+		List<Subproblem> batch = new ArrayList<Subproblem>();
+		int batchSize = 0;
+		for (final Subproblem subproblem:subproblems) {
+			if (subproblem.vertices.length<SEQUENTIAL_SIZE) {
+				batch.add(subproblem);
+				batchSize = batchSize+subproblem.vertices.length;
+				if (batchSize>=SEQUENTIAL_SIZE) {
+					searchTasks.add(createSolveTask(batch));
+					batch = new ArrayList<Subproblem>();
+					batchSize = 0;
+				}
+			}
+			else {
+				large.add(subproblem);
+				searchTasks.add(new Callable<List<Subproblem>>() {
+					@Override
+					public List<Subproblem> call() throws Exception {
+						search(subproblem,outOffsets,outTargets,forward);
+						return Collections.emptyList();
+					}
+				});
+				searchTasks.add(new Callable<List<Subproblem>>() {
+					@Override
+					public List<Subproblem> call() throws Exception {
+						search(subproblem,inOffsets,inSources,backward);
+						return Collections.emptyList();
+					}
+				});
+			}
+		}
+		if (!batch.isEmpty()) {
+			searchTasks.add(createSolveTask(batch));
+		}
+		ParallelTasks.invokeAll(executor,searchTasks);
+
+		List<Callable<List<Subproblem>>> partitionTasks = new ArrayList<Callable<List<Subproblem>>>();
+		for (final Subproblem subproblem:large) {
+			partitionTasks.add(new Callable<List<Subproblem>>() {
+				@Override
+				public List<Subproblem> call() throws Exception {
+					return partition(subproblem);
+				}
+			});
+		}
+		List<Subproblem> next = new ArrayList<Subproblem>();
+		for (List<Subproblem> result:ParallelTasks.invokeAll(executor,partitionTasks)) {
+			next.addAll(result);
+		}
+		return next;
+	}
+
+	// a task that completely solves a batch of (small) subproblems
+	private Callable<List<Subproblem>> createSolveTask(final List<Subproblem> batch) {
+		return new Callable<List<Subproblem>>() {
+			@Override
+			public List<Subproblem> call() throws Exception {
+				List<Subproblem> stack = new ArrayList<Subproblem>(batch);
+				while (!stack.isEmpty()) {
+					Subproblem subproblem = stack.remove(stack.size()-1);
+					search(subproblem,outOffsets,outTargets,forward);
+					search(subproblem,inOffsets,inSources,backward);
+					stack.addAll(partition(subproblem));
+				}
+				return Collections.emptyList();
+			}
+		};
+	}
+
+	// breadth first search from the pivot, only visits vertices with the colour of the subproblem,
+	// reached vertices are marked with the colour of the subproblem
+	// colours are never reused, and only the task processing a subproblem changes the colours of its vertices,
+	// so tasks processing other subproblems can safely run concurrently
+	private void search(Subproblem subproblem,int[] offsets,int[] neighbours,int[] marks) {
+		int colour = subproblem.colour;
+		int pivot = subproblem.vertices[0];
+		int[] queue = new int[subproblem.vertices.length];
+		int head = 0;
+		int tail = 0;
+		marks[pivot] = colour;
+		queue[tail++] = pivot;
+		while (head<tail) {
+			int v = queue[head++];
+			for (int i=offsets[v];i<offsets[v+1];i++) {
+				int w = neighbours[i];
+				if (colours[w]==colour && marks[w]!=colour) {
+					marks[w] = colour;
+					queue[tail++] = w;
+				}
+			}
+		}
+	}
+
+	// assign the component of the pivot, and split the other vertices into new subproblems
+	private List<Subproblem> partition(Subproblem subproblem) {
+		int colour = subproblem.colour;
+		int pivot = subproblem.vertices[0];
+		int[] sizes = new int[3];
+		for (int v:subproblem.vertices) {
+			boolean f = forward[v]==colour;
+			boolean b = backward[v]==colour;
+			if (!(f && b)) {
+				int part = f?0:(b?1:2);
+				sizes[part] = sizes[part]+1;
+			}
+		}
+		int[][] parts = new int[3][];
+		int[] partColours = new int[3];
+		for (int part=0;part<3;part++) {
+			parts[part] = new int[sizes[part]];
+			partColours[part] = sizes[part]==0?DONE:nextColour.getAndIncrement();
+			sizes[part] = 0;
+		}
+		for (int v:subproblem.vertices) {
+			boolean f = forward[v]==colour;
+			boolean b = backward[v]==colour;
+			if (f && b) {
+				colours[v] = DONE;
+				representatives[v] = pivot;
+			}
+			else {
+				int part = f?0:(b?1:2);
+				colours[v] = partColours[part];
+				parts[part][sizes[part]++] = v;
+			}
+		}
+		List<Subproblem> next = new ArrayList<Subproblem>(3);
+		for (int part=0;part<3;part++) {
+			if (parts[part].length>0) {
+				next.add(new Subproblem(partColours[part],parts[part]));
+			}
+		}
+		return next;
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Community detection by label propagation. Each vertex starts with its own label, and repeatedly adopts the label
+ * that is most frequent among its neighbours. The algorithm stops when no label changes, or after the max number of iterations.
+ * Complexity is O(|E|) per iteration, this is much faster than modularity optimisation, but the partitions are usually of lower quality.
+ * Updates are semi-synchronous: vertices are coloured (greedily, in random order) so that neighbours have different colours,
+ * and the vertices of one colour are updated at the same time. Since they are not adjacent, large colour classes can be updated in parallel
+ * without locking, and the result does not depend on the number of threads. Unlike synchronous updates, this always converges.
+ * Vertices keep their label if it is among the most frequent labels, other ties are broken by a random hash derived from the seed.
+ * Edge directions are ignored, and self loops do not count.
+ * Cordasco, G., Gargano, L. (2010), "Community detection via semi-synchronous label propagation algorithms",
+ * IEEE International Workshop on Business Applications of Social Network Analysis, doi:10.1109/BASNA.2010.5730298.
+ * Instances keep the number of iterations of the last run, and should not be shared between threads.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class LabelPropagationClusterer<V,E> implements Transformer<Graph<V,E>,Set<Set<V>>> {
+
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+	// colour classes with at least this number of vertices are updated in parallel
+	public static final int DEFAULT_THRESHOLD = 50000;
+
+	private ExecutorService executor = null;
+	private int maxIterations = DEFAULT_MAX_ITERATIONS;
+	private int threshold = DEFAULT_THRESHOLD;
+	private long seed = 42;
+	private int iterations = 0;
+	private boolean converged = false;
+
+	// the graph of the current run, undirected adjacency in CSR form without self loops
+	private int[] offsets = null;
+	private int[] neighbours = null;
+	private int[] labels = null;
+
+	/**
+	 * Create a clusterer with the default settings, large colour classes are updated using the default executor.
+	 */
+	public LabelPropagationClusterer() {
+		this(null,DEFAULT_MAX_ITERATIONS);
+	}
+
+	/**
+	 * Create a clusterer.
+	 * @param executor the executor, or null to use the default executor
+	 * @param maxIterations the max number of iterations, each iteration updates every vertex once
+	 */
+	public LabelPropagationClusterer(ExecutorService executor,int maxIterations) {
+		super();
+		this.executor = executor;
+		this.maxIterations = maxIterations;
+	}
+
+	/**
+	 * Set the min size of colour classes that are updated in parallel, smaller classes are updated sequentially.
+	 * @param threshold
+	 */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Set the seed used for the colouring order and to break ties.
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public Set<Set<V>> transform(Graph<V,E> g) {
+		CompactGraph<V,E> snapshot = new CompactGraph<V,E>(g);
+		int[] communities = cluster(snapshot);
+		int count = 0;
+		for (int community:communities) {
+			count = Math.max(count,community+1);
+		}
+		return Clusters.toSets(snapshot,communities,count);
+	}
+
+	/**
+	 * Compute communities on a graph snapshot.
+	 * @param g
+	 * @return the community id for each vertex id, community ids are dense
+	 */
+	public int[] cluster(CompactGraph<V,E> g) {
+		int vertexCount = g.getVertexCount();
+		buildAdjacency(g);
+		labels = new int[vertexCount];
+
+		// vertices grouped by colour, the vertices of colour c are at positions classOffsets[c] .. classOffsets[c+1]-1
+		int[] classOffsets = colour(vertexCount);
+		int[] classVertices = sortByColour(vertexCount,classOffsets);
+		int colourCount = classOffsets.length-1;
+		int largestClass = 0;
+		for (int c=0;c<colourCount;c++) {
+			largestClass = Math.max(largestClass,classOffsets[c+1]-classOffsets[c]);
+		}
+
+		// one worker per thread, the workers keep their buffers for the entire run
+		int workerCount = largestClass<threshold?1:ParallelTasks.getParallelism();
+		int maxDegree = 0;
+		for (int v=0;v<vertexCount;v++) {
+			maxDegree = Math.max(maxDegree,offsets[v+1]-offsets[v]);
+		}
+		List<Worker> workers = new ArrayList<Worker>(workerCount);
+		for (int i=0;i<workerCount;i++) {
+			workers.add(new Worker(vertexCount,maxDegree,classVertices));
+		}
+
+		iterations = 0;
+		converged = false;
+		while (!converged && iterations<maxIterations) {
+			int changed = 0;
+			for (int c=0;c<colourCount;c++) {
+				int from = classOffsets[c];
+				int to = classOffsets[c+1];
+				if (to-from<threshold) {
+					Worker worker = workers.get(0);
+					worker.set(from,to,iterations);
+					changed = changed+worker.call();
+				}
+				else {
+					int[] ranges = ParallelTasks.split(to-from,workerCount);
+					List<Worker> tasks = workers.subList(0,ranges.length-1);
+					for (int i=0;i<tasks.size();i++) {
+						tasks.get(i).set(from+ranges[i],from+ranges[i+1],iterations);
+					}
+					for (int partial:ParallelTasks.invokeAll(executor,tasks)) {
+						changed = changed+partial;
+					}
+				}
+			}
+			iterations = iterations+1;
+			converged = changed==0;
+		}
+
+		int[] communities = labels;
+		Clusters.renumber(communities);
+		offsets = null;
+		neighbours = null;
+		labels = null;
+		return communities;
+	}
+
+	/**
+	 * Get the number of iterations of the last run.
+	 * @return
+	 */
+	public int getIterations() {
+		return iterations;
+	}
+
+	/**
+	 * Whether the last run converged, i.e. stopped because no label changed and not because of the max number of iterations.
+	 * @return
+	 */
+	public boolean isConverged() {
+		return converged;
+	}
+
+	private void buildAdjacency(CompactGraph<V,E> g) {
+		int vertexCount = g.getVertexCount();
+		int[] sources = g.getSources();
+		int[] targets = g.getTargets();
+		int edgeCount = g.getEdgeCount();
+		offsets = new int[vertexCount+1];
+		for (int e=0;e<edgeCount;e++) {
+			int s = sources[e];
+			int t = targets[e];
+			if (s!=t) {
+				offsets[s+1] = offsets[s+1]+1;
+				offsets[t+1] = offsets[t+1]+1;
+			}
+		}
+		for (int v=0;v<vertexCount;v++) {
+			offsets[v+1] = offsets[v+1]+offsets[v];
+		}
+		neighbours = new int[offsets[vertexCount]];
+		int[] insert = new int[vertexCount];
+		System.arraycopy(offsets,0,insert,0,vertexCount);
+		for (int e=0;e<edgeCount;e++) {
+			int s = sources[e];
+			int t = targets[e];
+			if (s!=t) {
+				neighbours[insert[s]++] = t;
+				neighbours[insert[t]++] = s;
+			}
+		}
+	}
+
+	/**
+	 * Colour the vertices greedily in a random order, each vertex gets the smallest colour not used by its neighbours.
+	 * The colours are temporarily stored in labels.
+	 * @param vertexCount
+	 * @return the colour class offsets, the number of vertices with colour c is offsets[c+1]-offsets[c]
+	 */
+	private int[] colour(int vertexCount) {
+		int[] order = new int[vertexCount];
+		for (int v=0;v<vertexCount;v++) {
+			order[v] = v;
+		}
+		Random random = new Random(seed);
+		for (int i=vertexCount-1;i>0;i--) {
+			int j = random.nextInt(i+1);
+			int swap = order[i];
+			order[i] = order[j];
+			order[j] = swap;
+		}
+
+		int[] colours = new int[vertexCount];
+		Arrays.fill(colours,-1);
+		// used[c]==v if colour c is used by a neighbour of v
+		int[] used = new int[vertexCount+1];
+		Arrays.fill(used,-1);
+		int colourCount = 0;
+		for (int v:order) {
+			for (int p=offsets[v];p<offsets[v+1];p++) {
+				int colour = colours[neighbours[p]];
+				if (colour!=-1) used[colour] = v;
+			}
+			int colour = 0;
+			while (used[colour]==v) {
+				colour = colour+1;
+			}
+			colours[v] = colour;
+			colourCount = Math.max(colourCount,colour+1);
+		}
+
+		int[] classOffsets = new int[colourCount+1];
+		for (int v=0;v<vertexCount;v++) {
+			classOffsets[colours[v]+1] = classOffsets[colours[v]+1]+1;
+			labels[v] = colours[v];
+		}
+		for (int c=0;c<colourCount;c++) {
+			classOffsets[c+1] = classOffsets[c+1]+classOffsets[c];
+		}
+		return classOffsets;
+	}
+
+	// sort vertices by the colours stored in labels, and initialise each label with the vertex id
+	private int[] sortByColour(int vertexCount,int[] classOffsets) {
+		int[] classVertices = new int[vertexCount];
+		int[] insert = classOffsets.clone();
+		for (int v=0;v<vertexCount;v++) {
+			classVertices[insert[labels[v]]++] = v;
+			labels[v] = v;
+		}
+		return classVertices;
+	}
+
+	// a random number derived from the seed, used to break ties between labels
+	private static long hash(long seed,int iteration,int vertex,int label) {
+		long h = seed+0x9E3779B97F4A7C15L*(iteration+1);
+		h = h^(((long)vertex<<32)|(label&0xFFFFFFFFL));
+		h = (h^(h>>>30))*0xBF58476D1CE4E5B9L;
+		h = (h^(h>>>27))*0x94D049BB133111EBL;
+		return h^(h>>>31);
+	}
+
+	/**
+	 * Updates the labels of a range of vertices of one colour class.
+	 * Labels are counted in an array indexed by label, only the entries that have been used are reset.
+	 */
+	private class Worker implements Callable<Integer> {
+		private int[] vertices = null;
+		private int[] counts = null;
+		private int[] touched = null;
+		private int from = 0;
+		private int to = 0;
+		private int iteration = 0;
+
+		Worker(int vertexCount,int maxDegree,int[] vertices) {
+			super();
+			this.vertices = vertices;
+			this.counts = new int[vertexCount];
+			this.touched = new int[maxDegree];
+		}
+
+		void set(int from,int to,int iteration) {
+			this.from = from;
+			this.to = to;
+			this.iteration = iteration;
+		}
+
+		/**
+		 * Update the labels.
+		 * @return the number of vertices that changed their label
+		 */
+		@Override
+		public Integer call() {
+			int changed = 0;
+			for (int i=from;i<to;i++) {
+				int v = vertices[i];
+				int touchedCount = 0;
+				for (int p=offsets[v];p<offsets[v+1];p++) {
+					int label = labels[neighbours[p]];
+					if (counts[label]==0) touched[touchedCount++] = label;
+					counts[label] = counts[label]+1;
+				}
+				if (touchedCount==0) continue;
+
+				int current = labels[v];
+				int max = 0;
+				for (int j=0;j<touchedCount;j++) {
+					max = Math.max(max,counts[touched[j]]);
+				}
+				int best = current;
+				if (counts[current]<max) {
+					long bestHash = Long.MAX_VALUE;
+					for (int j=0;j<touchedCount;j++) {
+						int label = touched[j];
+						if (counts[label]==max) {
+							long h = hash(seed,iteration,v,label);
+							if (h<bestHash || (h==bestHash && label<best)) {
+								bestHash = h;
+								best = label;
+							}
+						}
+					}
+				}
+				for (int j=0;j<touchedCount;j++) {
+					counts[touched[j]] = 0;
+				}
+				if (best!=current) {
+					labels[v] = best;
+					changed = changed+1;
+				}
+			}
+			return changed;
+		}
+	}
+}
@@ -0,0 +1,372 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Implementation of Newman's leading eigenvector method, this clusterer maximises modularity
+ * (as computed by nz.ac.massey.jung.contrib.algorithms.metrics.Modularity) by repeated bisection.
+ * A group g is split according to the signs of the leading eigenvector of its generalised modularity matrix
+ * B(g)_ij = A_ij - k_i*k_j/2m - delta_ij*sum_(l in g) B_il. Groups are not split if the leading eigenvalue is not positive,
+ * or if the split does not improve modularity.
+ * The modularity matrix is never built. Products are computed as A*x - k*(k.x)/2m (restricted to the group) over the adjacency arrays of a graph snapshot,
+ * memory is therefore proportional to |V|+|E|. The leading eigenvector is computed by power iteration, shifted by a Gershgorin bound so that
+ * the eigenvalue with the largest magnitude is the leading eigenvalue. The iteration stops when the vector converges, or after the max number of iterations.
+ * Products for large groups are computed in parallel. Vectors are split into blocks of fixed size, so results do not depend on the number of threads.
+ * Edge directions are ignored.
+ * M. E. J. Newman: Modularity and community structure in networks. http://www.ncbi.nlm.nih.gov/pmc/articles/PMC1482622/
+ * Instances keep the modularity reached in the last run, and should not be shared between threads.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class LeadingEigenvectorClusterer<V,E> implements Transformer<Graph<V,E>,Set<Set<V>>> {
+
+	public static final int DEFAULT_MAX_ITERATIONS = 1000;
+	public static final double DEFAULT_TOLERANCE = 1e-6;
+	// groups with at least this number of vertices are multiplied in parallel
+	public static final int DEFAULT_THRESHOLD = 50000;
+	// splits must improve modularity by more than this
+	private static final double EPSILON = 1e-10;
+	// the size of the blocks vectors are split into
+	private static final int BLOCK_SIZE = 4096;
+
+	private ExecutorService executor = null;
+	private int maxIterations = DEFAULT_MAX_ITERATIONS;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private int threshold = DEFAULT_THRESHOLD;
+	private long seed = 42;
+	private double modularity = 0;
+
+	// the graph of the current run, undirected adjacency in CSR form, loops are stored separately
+	private int[] offsets = null;
+	private int[] neighbours = null;
+	private int[] loops = null;
+	private double[] degrees = null;
+	private double m2 = 0;
+	// the group of each vertex, and the position of each vertex in its group
+	private int[] groups = null;
+	private int[] positions = null;
+
+	/**
+	 * Create a clusterer with the default settings, large groups are multiplied using the default executor.
+	 */
+	public LeadingEigenvectorClusterer() {
+		this(null,DEFAULT_MAX_ITERATIONS,DEFAULT_TOLERANCE);
+	}
+
+	/**
+	 * Create a clusterer.
+	 * @param executor the executor, or null to use the default executor
+	 * @param maxIterations the max number of power iterations per bisection
+	 * @param tolerance the iteration stops when the (euclidean) distance between two consecutive normalised vectors is less than this
+	 */
+	public LeadingEigenvectorClusterer(ExecutorService executor,int maxIterations,double tolerance) {
+		super();
+		this.executor = executor;
+		this.maxIterations = maxIterations;
+		this.tolerance = tolerance;
+	}
+
+	/**
+	 * Set the min size of groups that are multiplied in parallel, groups smaller than this are multiplied sequentially.
+	 * @param threshold
+	 */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Set the seed used for the random start vectors of the power iteration.
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	@Override
+	public Set<Set<V>> transform(Graph<V,E> g) {
+		CompactGraph<V,E> snapshot = new CompactGraph<V,E>(g);
+		int[] communities = cluster(snapshot);
+		return Clusters.toSets(snapshot,communities,Clusters.renumber(communities));
+	}
+
+	/**
+	 * Compute communities on a graph snapshot.
+	 * @param g
+	 * @return the community id for each vertex id, community ids are dense
+	 */
+	public int[] cluster(CompactGraph<V,E> g) {
+		modularity = 0;
+		int vertexCount = g.getVertexCount();
+		buildAdjacency(g);
+		groups = new int[vertexCount];
+		positions = new int[vertexCount];
+		int groupCount = 1;
+		Random random = new Random(seed);
+
+		LinkedList<int[]> queue = new LinkedList<int[]>();
+		int[] all = new int[vertexCount];
+		for (int v=0;v<vertexCount;v++) {
+			all[v] = v;
+		}
+		queue.add(all);
+		while (!queue.isEmpty() && m2>0) {
+			int[] members = queue.removeFirst();
+			boolean[] signs = bisect(members,random);
+			if (signs!=null) {
+				int size = 0;
+				for (boolean sign:signs) {
+					if (sign) size = size+1;
+				}
+				int[] members1 = new int[size];
+				int[] members2 = new int[members.length-size];
+				int newGroup = groupCount;
+				groupCount = groupCount+1;
+				int i1 = 0;
+				int i2 = 0;
+				for (int i=0;i<members.length;i++) {
+					if (signs[i]) {
+						members1[i1++] = members[i];
+					}
+					else {
+						members2[i2++] = members[i];
+						groups[members[i]] = newGroup;
+					}
+				}
+				queue.add(members1);
+				queue.add(members2);
+			}
+		}
+
+		int[] communities = groups;
+		offsets = null;
+		neighbours = null;
+		loops = null;
+		degrees = null;
+		groups = null;
+		positions = null;
+		return communities;
+	}
+
+	/**
+	 * Get the modularity of the communities computed in the last run.
+	 * @return
+	 */
+	public double getModularity() {
+		return modularity;
+	}
+
+	private void buildAdjacency(CompactGraph<V,E> g) {
+		int vertexCount = g.getVertexCount();
+		int[] sources = g.getSources();
+		int[] targets = g.getTargets();
+		int edgeCount = g.getEdgeCount();
+		offsets = new int[vertexCount+1];
+		loops = new int[vertexCount];
+		degrees = new double[vertexCount];
+		for (int e=0;e<edgeCount;e++) {
+			int s = sources[e];
+			int t = targets[e];
+			if (s==t) {
+				loops[s] = loops[s]+1;
+			}
+			else {
+				offsets[s+1] = offsets[s+1]+1;
+				offsets[t+1] = offsets[t+1]+1;
+			}
+			degrees[s] = degrees[s]+1;
+			degrees[t] = degrees[t]+1;
+		}
+		for (int v=0;v<vertexCount;v++) {
+			offsets[v+1] = offsets[v+1]+offsets[v];
+		}
+		neighbours = new int[offsets[vertexCount]];
+		int[] insert = new int[vertexCount];
+		System.arraycopy(offsets,0,insert,0,vertexCount);
+		for (int e=0;e<edgeCount;e++) {
+			int s = sources[e];
+			int t = targets[e];
+			if (s!=t) {
+				neighbours[insert[s]++] = t;
+				neighbours[insert[t]++] = s;
+			}
+		}
+		m2 = 2.0*edgeCount;
+	}
+
+	/**
+	 * Try to split a group.
+	 * @param members the vertices in the group
+	 * @param random
+	 * @return the side of each member, or null if the group is indivisible
+	 */
+	private boolean[] bisect(final int[] members,Random random) {
+		final int size = members.length;
+		if (size<2) return null;
+		final int group = groups[members[0]];
+		double groupDegree = 0;
+		for (int i=0;i<size;i++) {
+			positions[members[i]] = i;
+			groupDegree = groupDegree+degrees[members[i]];
+		}
+
+		// the row sums of B restricted to the group form the diagonal correction, the shift is a bound of the spectral radius
+		final double[] rowSums = new double[size];
+		double shift = 0;
+		for (int i=0;i<size;i++) {
+			int v = members[i];
+			double links = 2*loops[v];
+			for (int p=offsets[v];p<offsets[v+1];p++) {
+				if (groups[neighbours[p]]==group) links = links+1;
+			}
+			double expected = degrees[v]*groupDegree/m2;
+			rowSums[i] = links-expected;
+			shift = Math.max(shift,2*(links+expected));
+		}
+		if (shift==0) return null;
+
+		double[] x = new double[size];
+		for (int i=0;i<size;i++) {
+			x[i] = random.nextDouble()-0.5;
+		}
+		normalise(x);
+		double[] y = new double[size];
+		double eigenvalue = 0;
+		for (int iteration=0;iteration<maxIterations;iteration++) {
+			multiply(members,group,rowSums,shift,x,y);
+			double norm = Math.sqrt(dot(y,y));
+			if (norm==0) return null;
+			double distance = 0;
+			for (int i=0;i<size;i++) {
+				y[i] = y[i]/norm;
+				double d = y[i]-x[i];
+				distance = distance+d*d;
+			}
+			eigenvalue = norm-shift;
+			double[] swap = x;
+			x = y;
+			y = swap;
+			if (Math.sqrt(distance)<tolerance) break;
+		}
+		if (eigenvalue<=EPSILON) return null;
+
+		// the modularity gain of the split is s.B(g).s/4m
+		boolean[] signs = new boolean[size];
+		double[] s = new double[size];
+		int positive = 0;
+		for (int i=0;i<size;i++) {
+			signs[i] = x[i]>=0;
+			s[i] = signs[i]?1:-1;
+			if (signs[i]) positive = positive+1;
+		}
+		if (positive==0 || positive==size) return null;
+		multiply(members,group,rowSums,0,s,y);
+		double gain = dot(s,y)/(2*m2);
+		if (gain<=EPSILON) return null;
+		modularity = modularity+gain;
+		return signs;
+	}
+
+	/**
+	 * Compute y = (B(g)+shift*I).x, blocks of the vector are computed in parallel for large groups.
+	 */
+	private void multiply(final int[] members,final int group,final double[] rowSums,final double shift,final double[] x,final double[] y) {
+		final int size = members.length;
+		int blockCount = (size+BLOCK_SIZE-1)/BLOCK_SIZE;
+		// k.x, summed up per block and then in block order
+		double kx = 0;
+		if (size<threshold) {
+			for (int b=0;b<blockCount;b++) {
+				kx = kx+sumDegrees(members,x,b*BLOCK_SIZE,Math.min(size,(b+1)*BLOCK_SIZE));
+			}
+			multiply(members,group,rowSums,shift,x,y,kx,0,size);
+			return;
+		}
+
+		List<Callable<Double>> sumTasks = new ArrayList<Callable<Double>>(blockCount);
+		for (int b=0;b<blockCount;b++) {
+			final int from = b*BLOCK_SIZE;
+			final int to = Math.min(size,from+BLOCK_SIZE);
+			sumTasks.add(new Callable<Double>() {
+				@Override
+				public Double call() throws Exception {
+					return sumDegrees(members,x,from,to);
+				}
+			});
+		}
+		for (double partial:ParallelTasks.invokeAll(executor,sumTasks)) {
+			kx = kx+partial;
+		}
+		final double finalKx = kx;
+		List<Callable<Object>> multiplyTasks = new ArrayList<Callable<Object>>(blockCount);
+		for (int b=0;b<blockCount;b++) {
+			final int from = b*BLOCK_SIZE;
+			final int to = Math.min(size,from+BLOCK_SIZE);
+			multiplyTasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					multiply(members,group,rowSums,shift,x,y,finalKx,from,to);
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor,multiplyTasks);
+	}
+
+	private double sumDegrees(int[] members,double[] x,int from,int to) {
+		double sum = 0;
+		for (int i=from;i<to;i++) {
+			sum = sum+degrees[members[i]]*x[i];
+		}
+		return sum;
+	}
+
+	// compute the entries from .. to-1 of y
+	private void multiply(int[] members,int group,double[] rowSums,double shift,double[] x,double[] y,double kx,int from,int to) {
+		for (int i=from;i<to;i++) {
+			int v = members[i];
+			double sum = 2*loops[v]*x[i];
+			for (int p=offsets[v];p<offsets[v+1];p++) {
+				int w = neighbours[p];
+				if (groups[w]==group) sum = sum+x[positions[w]];
+			}
+			y[i] = sum - degrees[v]*kx/m2 - rowSums[i]*x[i] + shift*x[i];
+		}
+	}
+
+	private static double dot(double[] x,double[] y) {
+		double sum = 0;
+		for (int i=0;i<x.length;i++) {
+			sum = sum+x[i]*y[i];
+		}
+		return sum;
+	}
+
+	private static void normalise(double[] x) {
+		double norm = Math.sqrt(dot(x,x));
+		if (norm>0) {
+			for (int i=0;i<x.length;i++) {
+				x[i] = x[i]/norm;
+			}
+		}
+	}
+}
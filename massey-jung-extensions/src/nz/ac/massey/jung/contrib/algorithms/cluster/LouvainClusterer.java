@@ -0,0 +1,301 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Implementation of the Louvain method for community detection, this clusterer maximises modularity
+ * (as computed by nz.ac.massey.jung.contrib.algorithms.metrics.Modularity).
+ * Each level consists of a local moving phase (vertices move to the neighbouring community with the largest modularity gain,
+ * until no move improves modularity) followed by the aggregation of communities into the vertices of the next level.
+ * The algorithm stops when a level does not move any vertex.
+ * All levels are stored as weighted, undirected adjacency arrays (edge directions are ignored), and the gain of a move is computed in O(1)
+ * from the weight of the edges to the target community and the total degree of the target community.
+ * Blondel, V. D., Guillaume, J.-L., Lambiotte, R., Lefebvre, E. (2008), "Fast unfolding of communities in large networks",
+ * Journal of Statistical Mechanics: Theory and Experiment (10): P10008, doi:10.1088/1742-5468/2008/10/P10008.
+ * Instances keep the modularity reached at each level of the last run, and should not be shared between threads.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class LouvainClusterer<V,E> implements Transformer<Graph<V,E>,Set<Set<V>>> {
+
+	// moves must improve the gain by more than this to avoid cycling caused by rounding
+	private static final double EPSILON = 1e-10;
+
+	private List<Double> levelModularities = new ArrayList<Double>();
+
+	@Override
+	public Set<Set<V>> transform(Graph<V,E> g) {
+		CompactGraph<V,E> snapshot = new CompactGraph<V,E>(g);
+		int[] communities = cluster(snapshot);
+		return Clusters.toSets(snapshot,communities,Clusters.renumber(communities));
+	}
+
+	/**
+	 * Compute communities on a graph snapshot.
+	 * @param g
+	 * @return the community id for each vertex id, community ids are dense
+	 */
+	public int[] cluster(CompactGraph<V,E> g) {
+		levelModularities.clear();
+		int vertexCount = g.getVertexCount();
+		int[] membership = new int[vertexCount];
+		for (int v=0;v<vertexCount;v++) {
+			membership[v] = v;
+		}
+
+		Level level = new Level(g);
+		boolean moved;
+		do {
+			int[] communities = new int[level.size];
+			moved = level.moveLocally(communities);
+			if (moved || levelModularities.isEmpty()) {
+				int count = Clusters.renumber(communities);
+				for (int v=0;v<vertexCount;v++) {
+					membership[v] = communities[membership[v]];
+				}
+				level = level.aggregate(communities,count);
+				levelModularities.add(level.modularity());
+			}
+		} while (moved);
+		return membership;
+	}
+
+	/**
+	 * Get the modularity reached at each level of the last run.
+	 * @return
+	 */
+	public List<Double> getLevelModularities() {
+		return Collections.unmodifiableList(levelModularities);
+	}
+
+	/**
+	 * Get the modularity of the communities computed in the last run.
+	 * @return
+	 */
+	public double getModularity() {
+		return levelModularities.isEmpty()?0:levelModularities.get(levelModularities.size()-1);
+	}
+
+	/**
+	 * A weighted, undirected graph in CSR form. Each edge is stored in both directions, self loops are stored separately.
+	 */
+	private static class Level {
+		int size = 0;
+		int[] offsets = null;
+		int[] neighbours = null;
+		double[] weights = null;
+		// weight of the self loops of each vertex
+		double[] loops = null;
+		// the weighted degree, a self loop contributes twice its weight
+		double[] strengths = null;
+		// m, the total weight of all edges
+		double totalWeight = 0;
+
+		Level(int size) {
+			this.size = size;
+		}
+
+		Level(CompactGraph<?,?> g) {
+			this(g.getVertexCount());
+			int[] sources = g.getSources();
+			int[] targets = g.getTargets();
+			int edgeCount = g.getEdgeCount();
+			offsets = new int[size+1];
+			loops = new double[size];
+			strengths = new double[size];
+			for (int e=0;e<edgeCount;e++) {
+				int s = sources[e];
+				int t = targets[e];
+				if (s==t) {
+					loops[s] = loops[s]+1;
+				}
+				else {
+					offsets[s+1] = offsets[s+1]+1;
+					offsets[t+1] = offsets[t+1]+1;
+				}
+				strengths[s] = strengths[s]+1;
+				strengths[t] = strengths[t]+1;
+			}
+			for (int v=0;v<size;v++) {
+				offsets[v+1] = offsets[v+1]+offsets[v];
+			}
+			neighbours = new int[offsets[size]];
+			weights = new double[offsets[size]];
+			Arrays.fill(weights,1);
+			int[] positions = Arrays.copyOf(offsets,size);
+			for (int e=0;e<edgeCount;e++) {
+				int s = sources[e];
+				int t = targets[e];
+				if (s!=t) {
+					neighbours[positions[s]++] = t;
+					neighbours[positions[t]++] = s;
+				}
+			}
+			totalWeight = edgeCount;
+		}
+
+		/**
+		 * Local moving phase.
+		 * @param communities the community of each vertex, set by this method
+		 * @return whether any vertex has been moved
+		 */
+		boolean moveLocally(int[] communities) {
+			for (int v=0;v<size;v++) {
+				communities[v] = v;
+			}
+			if (totalWeight==0) return false;
+
+			double m2 = 2*totalWeight;
+			double[] totals = Arrays.copyOf(strengths,size);
+			// scratch arrays: weights to neighbouring communities, and the list of these communities
+			double[] communityWeights = new double[size];
+			Arrays.fill(communityWeights,-1);
+			int[] neighbourCommunities = new int[size];
+			boolean moved = false;
+			int moves;
+			do {
+				moves = 0;
+				for (int v=0;v<size;v++) {
+					int current = communities[v];
+					double k = strengths[v];
+					int count = 0;
+					communityWeights[current] = 0;
+					neighbourCommunities[count++] = current;
+					for (int p=offsets[v];p<offsets[v+1];p++) {
+						int c = communities[neighbours[p]];
+						if (communityWeights[c]<0) {
+							communityWeights[c] = 0;
+							neighbourCommunities[count++] = c;
+						}
+						communityWeights[c] = communityWeights[c]+weights[p];
+					}
+
+					// remove v from its community, then find the community with the best gain
+					totals[current] = totals[current]-k;
+					int best = current;
+					double bestGain = communityWeights[current] - totals[current]*k/m2;
+					for (int i=1;i<count;i++) {
+						int c = neighbourCommunities[i];
+						double gain = communityWeights[c] - totals[c]*k/m2;
+						if (gain>bestGain+EPSILON) {
+							best = c;
+							bestGain = gain;
+						}
+					}
+					totals[best] = totals[best]+k;
+					communities[v] = best;
+					if (best!=current) {
+						moves = moves+1;
+					}
+
+					for (int i=0;i<count;i++) {
+						communityWeights[neighbourCommunities[i]] = -1;
+					}
+				}
+				moved = moved || moves>0;
+			} while (moves>0);
+			return moved;
+		}
+
+		/**
+		 * Aggregate communities into the vertices of a new level.
+		 * @param communities the dense community ids
+		 * @param count the number of communities
+		 * @return
+		 */
+		Level aggregate(int[] communities,int count) {
+			// group vertices by community
+			int[] memberOffsets = new int[count+1];
+			for (int v=0;v<size;v++) {
+				memberOffsets[communities[v]+1] = memberOffsets[communities[v]+1]+1;
+			}
+			for (int c=0;c<count;c++) {
+				memberOffsets[c+1] = memberOffsets[c+1]+memberOffsets[c];
+			}
+			int[] members = new int[size];
+			int[] positions = Arrays.copyOf(memberOffsets,count);
+			for (int v=0;v<size;v++) {
+				members[positions[communities[v]]++] = v;
+			}
+
+			Level next = new Level(count);
+			next.totalWeight = totalWeight;
+			next.offsets = new int[count+1];
+			next.loops = new double[count];
+			next.strengths = new double[count];
+			int[] newNeighbours = new int[neighbours.length];
+			double[] newWeights = new double[neighbours.length];
+			double[] communityWeights = new double[count];
+			int[] marks = new int[count];
+			Arrays.fill(marks,-1);
+			int[] neighbourCommunities = new int[count];
+			int position = 0;
+			for (int c=0;c<count;c++) {
+				next.offsets[c] = position;
+				int neighbourCount = 0;
+				for (int i=memberOffsets[c];i<memberOffsets[c+1];i++) {
+					int v = members[i];
+					next.loops[c] = next.loops[c]+loops[v];
+					next.strengths[c] = next.strengths[c]+strengths[v];
+					for (int p=offsets[v];p<offsets[v+1];p++) {
+						int d = communities[neighbours[p]];
+						if (d==c) {
+							// internal edges are visited from both end points
+							next.loops[c] = next.loops[c]+weights[p]/2;
+						}
+						else {
+							if (marks[d]!=c) {
+								marks[d] = c;
+								communityWeights[d] = 0;
+								neighbourCommunities[neighbourCount++] = d;
+							}
+							communityWeights[d] = communityWeights[d]+weights[p];
+						}
+					}
+				}
+				for (int i=0;i<neighbourCount;i++) {
+					int d = neighbourCommunities[i];
+					newNeighbours[position] = d;
+					newWeights[position] = communityWeights[d];
+					position = position+1;
+				}
+			}
+			next.offsets[count] = position;
+			next.neighbours = Arrays.copyOf(newNeighbours,position);
+			next.weights = Arrays.copyOf(newWeights,position);
+			return next;
+		}
+
+		/**
+		 * Modularity if each vertex of this level is a community.
+		 * @return
+		 */
+		double modularity() {
+			if (totalWeight==0) return 0;
+			double m2 = 2*totalWeight;
+			double sum = 0;
+			for (int v=0;v<size;v++) {
+				double a = strengths[v]/m2;
+				sum = sum + loops[v]/totalWeight - a*a;
+			}
+			return sum;
+		}
+	}
+}
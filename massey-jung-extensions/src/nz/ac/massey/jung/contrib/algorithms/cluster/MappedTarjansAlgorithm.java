@@ -0,0 +1,112 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import nz.ac.massey.jung.contrib.io.CsrFile;
+import nz.ac.massey.jung.contrib.io.GraphFile;
+import nz.ac.massey.jung.contrib.io.GraphFiles;
+import nz.ac.massey.jung.contrib.io.MappedIntArray;
+import nz.ac.massey.jung.contrib.io.MappedLongArray;
+
+/**
+ * Tarjan's algorithm for graphs stored on disk, for graphs that are too large to be loaded onto the heap.
+ * Graphs are read from CSR files or graph files (see GraphFiles, edge lists can be converted into the CSR format), edges are accessed through
+ * memory mapped buffers. The state of the search is kept in arrays indexed by vertex, the heap required is about 37 bytes per vertex
+ * and does not depend on the number of edges. Component ids are written to a file as memory mapped int array (one little endian int per vertex),
+ * components are numbered in reverse topological order. Instances are not thread-safe.
+ * @author jens dietrich
+ */
+public class MappedTarjansAlgorithm {
+
+	private ComponentSearch search = new ComponentSearch();
+
+	/**
+	 * Compute the components of a graph stored in a CSR file.
+	 * @param csrFile the graph
+	 * @param componentFile the file the component ids are written to
+	 * @return the number of components
+	 * @throws IOException
+	 */
+	public int computeComponents(File csrFile,File componentFile) throws IOException {
+		CsrFile graph = new CsrFile(csrFile);
+		try {
+			RandomAccessFile out = new RandomAccessFile(componentFile,"rw");
+			try {
+				out.setLength(4L*graph.getVertexCount());
+				MappedIntArray componentIds = new MappedIntArray(out.getChannel(),FileChannel.MapMode.READ_WRITE,0,graph.getVertexCount());
+				int componentCount = computeComponents(graph.getVertexCount(),graph.getOffsets(),graph.getTargets(),componentIds);
+				componentIds.force();
+				return componentCount;
+			}
+			finally {
+				out.close();
+			}
+		}
+		finally {
+			graph.close();
+		}
+	}
+
+	/**
+	 * Compute the components of a graph stored in a graph file. Undirected graphs are treated as graphs with edges in both directions,
+	 * the components are then the connected components of the graph.
+	 * @param graph the graph
+	 * @param componentFile the file the component ids are written to
+	 * @return the number of components
+	 * @throws IOException
+	 */
+	public int computeComponents(GraphFile<?> graph,File componentFile) throws IOException {
+		RandomAccessFile out = new RandomAccessFile(componentFile,"rw");
+		try {
+			out.setLength(4L*graph.getVertexCount());
+			MappedIntArray componentIds = new MappedIntArray(out.getChannel(),FileChannel.MapMode.READ_WRITE,0,graph.getVertexCount());
+			int componentCount = computeComponents(graph.getVertexCount(),graph.getOffsets(),graph.getTargets(),componentIds);
+			componentIds.force();
+			return componentCount;
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Compute the components of a graph from an edge list. The edge list is first converted into a CSR file.
+	 * @param edgeList the graph
+	 * @param csrFile the file used to store the CSR representation of the graph
+	 * @param componentFile the file the component ids are written to
+	 * @return the number of components
+	 * @throws IOException
+	 */
+	public int computeComponentsFromEdgeList(File edgeList,File csrFile,File componentFile) throws IOException {
+		GraphFiles.convertEdgeListToCsr(edgeList,csrFile);
+		return computeComponents(csrFile,componentFile);
+	}
+
+	/**
+	 * Compute the components of a graph given by mapped arrays.
+	 * @param vertexCount the number of vertices
+	 * @param offsets the out edges of vertex v are at positions offsets[v] .. offsets[v+1]-1 in targets
+	 * @param targets the targets of the out edges
+	 * @param componentIds the array to store the component id of each vertex in
+	 * @return the number of components
+	 */
+	public int computeComponents(int vertexCount,MappedLongArray offsets,MappedIntArray targets,MappedIntArray componentIds) {
+		int[] ids = new int[vertexCount];
+		int componentCount = search.search(vertexCount,offsets,targets,ids);
+		for (int v=0;v<vertexCount;v++) {
+			componentIds.set(v,ids[v]);
+		}
+		return componentCount;
+	}
+}
@@ -10,7 +10,10 @@
 package nz.ac.massey.jung.contrib.algorithms.cluster;
 
 import java.util.HashSet;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.collections15.Transformer;
 import edu.uci.ics.jung.graph.Graph;
 
@@ -18,6 +21,11 @@ import edu.uci.ics.jung.graph.Graph;
  * Implementation of Tarjan's algorithm. This class uses an interface that is compatible with other jung clusterers,
  * for more flexibility (computing components as graph and using edge filters), use the class TarjansAlgorithm directly. 
  * Complexity is O(|V|+|E|).
+ * Graphs with at least threshold vertices and edges (|V|+|E|) are processed by the parallel ForwardBackwardAlgorithm instead,
+ * this computes the same components.
+ * Instances of TarjansAlgorithm (and their buffers) are pooled by the clusterer and reused for all graphs, each call borrows an instance
+ * and returns it when done, so the clusterer can be shared between threads. The pool holds at most one instance per concurrent call,
+ * and is owned by the clusterer: unlike thread locals, the buffers are not pinned to (pool) threads and are released with the clusterer.
  * Tarjan, R. E. (1972), "Depth-first search and linear graph algorithms", SIAM Journal on Computing 1 (2): 146160, doi:10.1137/0201010.
  * {@link http://algowiki.net/wiki/index.php?title=Tarjan's_algorithm}
  * @author jens dietrich
@@ -26,12 +34,63 @@ import edu.uci.ics.jung.graph.Graph;
  */
 
 public class TarjanClusterer<V,E> implements Transformer<Graph<V,E>,Set<Set<V>>> {
+	
+	public static final int DEFAULT_THRESHOLD = 1000000;
+	
+	private ExecutorService executor = null;
+	private int threshold = DEFAULT_THRESHOLD;
+	// algorithms that are not in use
+	private Queue<TarjansAlgorithm<V,E>> algorithms = new ConcurrentLinkedQueue<TarjansAlgorithm<V,E>>();
+	
+	/**
+	 * Create a clusterer using the parallel algorithm for graphs larger than the default threshold.
+	 */
+	public TarjanClusterer() {
+		this(null,DEFAULT_THRESHOLD);
+	}
+	
+	/**
+	 * Create a clusterer.
+	 * @param parallel whether to always (true) or never (false) use the parallel algorithm
+	 */
+	public TarjanClusterer(boolean parallel) {
+		this(null,parallel?0:Integer.MAX_VALUE);
+	}
+	
+	/**
+	 * Create a clusterer.
+	 * @param executor the executor used by the parallel algorithm, or null to use the default executor
+	 * @param threshold the min size (|V|+|E|) of graphs processed by the parallel algorithm
+	 */
+	public TarjanClusterer(ExecutorService executor,int threshold) {
+		super();
+		this.executor = executor;
+		this.threshold = threshold;
+	}
+	
 	@Override
 	public Set<Set<V>> transform(Graph<V, E> g) {
-		final TarjansAlgorithm<V,E> alg = new TarjansAlgorithm<V,E>();
-		alg.buildComponentGraph(g, TarjansAlgorithm.NULL_FILTER);
 		final Set<Set<V>> components = new HashSet<Set<V>>();
-		components.addAll(alg.getComponentMembership().values());
+		if ((long)g.getVertexCount()+g.getEdgeCount()>=threshold) {
+			final ForwardBackwardAlgorithm<V,E> alg = new ForwardBackwardAlgorithm<V,E>(executor,false);
+			alg.buildComponentGraph(g, TarjansAlgorithm.<E>nullFilter());
+			components.addAll(alg.getComponentMembership().values());
+		}
+		else {
+			TarjansAlgorithm<V,E> algorithm = algorithms.poll();
+			if (algorithm==null) {
+				algorithm = new TarjansAlgorithm<V,E>();
+			}
+			try {
+				algorithm.buildComponentGraph(g, TarjansAlgorithm.<E>nullFilter());
+				components.addAll(algorithm.getComponentMembership().values());
+			}
+			finally {
+				// do not keep references to the graph
+				algorithm.reset();
+				algorithms.offer(algorithm);
+			}
+		}
 		return components;
 	}
 
@@ -22,14 +22,29 @@ package nz.ac.massey.jung.contrib.algorithms.cluster;
 
 
 import java.util.*;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.io.GraphFile;
+import nz.ac.massey.jung.contrib.io.MappedIntArray;
+import nz.ac.massey.jung.contrib.io.MappedLongArray;
+import nz.ac.massey.jung.contrib.util.AlgorithmListener;
+import nz.ac.massey.jung.contrib.util.Instrumentation;
 import org.apache.commons.collections15.Predicate;
 import edu.uci.ics.jung.graph.DirectedGraph;
-import edu.uci.ics.jung.graph.DirectedSparseGraph;
 import edu.uci.ics.jung.graph.Graph;
 
 /**
  * Implementation of Tarjan's algorithm.
  * Complexity is O(|V|+|E|).
+ * The depth first search uses an explicit stack instead of recursion, so deep graphs (such as long dependency chains)
+ * do not cause stack overflows. Only the out edges of each vertex are visited.
+ * The components and the edges between them are represented as compact Condensation, the jung component graph
+ * is only built if getComponentGraph() is called.
+ * Instances can be reused: each call of buildComponentGraph starts with a reset. The int arrays used by the search
+ * are kept between runs and only grown if necessary, so that processing many small graphs does not allocate much memory.
+ * The results of a run (in particular the map returned by getComponentMembership) are only valid until the next run or reset.
+ * Instances are not thread-safe.
+ * The time spent building the adjacency, in the depth first search and building the condensation, the number of vertices and edges visited,
+ * the number of components and the peak search depth are reported to the listener set in Instrumentation, using the prefix "tarjan.".
  * Tarjan, R. E. (1972), "Depth-first search and linear graph algorithms", SIAM Journal on Computing 1 (2): 146160, doi:10.1137/0201010.
  * {@link http://algowiki.net/wiki/index.php?title=Tarjan's_algorithm}
  * @author jens dietrich
@@ -37,88 +52,242 @@ import edu.uci.ics.jung.graph.Graph;
  * @param <E>
  */
 public class TarjansAlgorithm<V, E> {
+	// prefix of the metrics reported to the instrumentation listener
+	static final String PREFIX = "tarjan.";
 	static final Predicate NULL_FILTER = new Predicate() {
 		@Override
 		public boolean evaluate(Object e) {
 			return true;
 		}
 	};
+	
+	// the null filter, typed for the edges of a graph
+	@SuppressWarnings("unchecked")
+	static <E> Predicate<E> nullFilter() {
+		return NULL_FILTER;
+	}
 
-	private int index = 0;
-	private Stack<V> stack = new Stack<V>();
-	private Map<V, Integer> indices = new HashMap<V, Integer>();
-	private Map<V, Integer> lowlinks = new HashMap<V, Integer>();
-	private Map<V,Set<V>> componentMembership = new HashMap<V,Set<V>>();
+	private Map<V,Component<V>> componentMembership = new HashMap<V,Component<V>>();
 	// by default, use null filter
-	private Predicate<E> edgeFilter = NULL_FILTER;
+	private Predicate<E> edgeFilter = nullFilter();
+	private boolean countMultiplicities = false;
+	private Condensation<V> condensation = null;
+
+	// buffers kept between runs
+	private ComponentSearch search = new ComponentSearch();
+	private Map<V,Integer> vertexIds = new HashMap<V,Integer>();
+	private List<V> vertices = new ArrayList<V>();
+	private int[] offsets = new int[0];
+	private int[] targets = new int[0];
+	private int[] componentIds = new int[0];
+	private int[] componentSources = new int[0];
+	private int[] componentTargets = new int[0];
 	
-	private DirectedGraph<Set<V>, Integer> componentGraph = null;
+	public TarjansAlgorithm() {
+		this(false);
+	}
 	
+	/**
+	 * Constructor.
+	 * @param countMultiplicities whether the condensation records how many edges connect two components
+	 */
+	public TarjansAlgorithm(boolean countMultiplicities) {
+		super();
+		this.countMultiplicities = countMultiplicities;
+	}
+	
+	/**
+	 * Discard the results of the previous run. Buffers are kept for the next run.
+	 */
+	public void reset() {
+		componentMembership.clear();
+		edgeFilter = nullFilter();
+		condensation = null;
+		vertexIds.clear();
+		vertices.clear();
+	}
 	
 	public void  buildComponentGraph(Graph<V, E> graph,Predicate<E> edgeFilter) {
-		this.componentGraph = new DirectedSparseGraph<Set<V>, Integer>();
+		reset();
 		if (edgeFilter!=null) this.edgeFilter = edgeFilter;
 		
+		// build the adjacency in compressed sparse row form
+		long start = System.nanoTime();
+		int vertexCount = graph.getVertexCount();
 		for (V v:graph.getVertices()) {
-			if (!indices.containsKey(v)) {
-				buildComponent(graph,v);
+			vertexIds.put(v,vertices.size());
+			vertices.add(v);
+		}
+		offsets = ComponentSearch.ensureCapacity(offsets,vertexCount+1);
+		offsets[0] = 0;
+		int edgeCount = 0;
+		long edgesVisited = 0;
+		for (int v=0;v<vertexCount;v++) {
+			V vertex = vertices.get(v);
+			for (E e:graph.getOutEdges(vertex)) {
+				edgesVisited = edgesVisited+1;
+				if (this.edgeFilter.evaluate(e)) {
+					targets = grow(targets,edgeCount+1);
+					targets[edgeCount] = vertexIds.get(graph.getOpposite(vertex,e));
+					edgeCount = edgeCount+1;
+				}
 			}
+			offsets[v+1] = edgeCount;
 		}
-		
-		int id = 0;
-		
-		// add edges
-		for (E e:graph.getEdges()) {
-			if (edgeFilter.evaluate(e)) {
-				// note that the graph implementation class used will check for and reject parallel edges
-				// as a consequence, their may be gaps in the range of assigned ids
-				componentGraph.addEdge(id++,componentMembership.get(graph.getSource(e)),componentMembership.get(graph.getDest(e)));
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.ADJACENCY,System.nanoTime()-start);
+			if (this.edgeFilter!=NULL_FILTER) {
+				listener.count(PREFIX+AlgorithmListener.PREDICATE_INVOCATIONS,edgesVisited);
 			}
-			
 		}
 		
+		buildComponents(vertexCount,edgeCount);
 	}
 	
-	public DirectedGraph<Set<V>, Integer> getComponentGraph() {
-		return this.componentGraph;
+	/**
+	 * Build the component graph from a graph snapshot. Edge filters are applied when the snapshot is built.
+	 * All state used during the depth first search is kept in int arrays indexed by vertex id.
+	 * @param graph
+	 */
+	public void buildComponentGraph(CompactGraph<V, E> graph) {
+		reset();
+		vertices.addAll(graph.getVertices());
+		// use the adjacency of the snapshot, the buffers are restored afterwards
+		int[] offsetBuffer = offsets;
+		int[] targetBuffer = targets;
+		offsets = graph.getOutOffsets();
+		targets = graph.getOutTargets();
+		buildComponents(graph.getVertexCount(),targets.length);
+		offsets = offsetBuffer;
+		targets = targetBuffer;
 	}
-	
-	public Map<V,Set<V>> getComponentMembership () {
-		return this.componentMembership;
+
+	/**
+	 * Build the component graph from a graph stored in a memory mapped graph file. The adjacency is read from the mapped buffers,
+	 * only the vertices and the arrays indexed by vertex are loaded onto the heap. Undirected edges are stored in both directions,
+	 * for undirected graphs the components are therefore the connected components.
+	 * @param graph
+	 */
+	public void buildComponentGraph(GraphFile<V> graph) {
+		int vertexCount = graph.getVertexCount();
+		MappedLongArray fileOffsets = graph.getOffsets();
+		MappedIntArray fileTargets = graph.getTargets();
+		long entryCount = fileOffsets.get(vertexCount);
+		if (entryCount>Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("The graph has too many edges to build the condensation on the heap, use MappedTarjansAlgorithm instead");
+		}
+		int edgeCount = (int)entryCount;
+
+		reset();
+		for (int v=0;v<vertexCount;v++) {
+			vertices.add(graph.getVertex(v));
+		}
+		componentIds = ComponentSearch.ensureCapacity(componentIds,vertexCount);
+		long start = System.nanoTime();
+		int componentCount = search.search(vertexCount,fileOffsets,fileTargets,componentIds);
+		searchCompleted(start,vertexCount,edgeCount);
+		start = System.nanoTime();
+		List<Component<V>> components = collectComponents(vertexCount,componentCount);
+
+		componentSources = ComponentSearch.ensureCapacity(componentSources,edgeCount);
+		componentTargets = ComponentSearch.ensureCapacity(componentTargets,edgeCount);
+		int i = 0;
+		for (int v=0;v<vertexCount;v++) {
+			long end = fileOffsets.get(v+1);
+			for (;i<end;i++) {
+				componentSources[i] = componentIds[v];
+				componentTargets[i] = componentIds[fileTargets.get(i)];
+			}
+		}
+		this.condensation = new Condensation<V>(new ArrayList<Set<V>>(components),componentSources,componentTargets,edgeCount,countMultiplicities);
+		condensationCompleted(start,componentCount);
 	}
-	
-	private void buildComponent(Graph<V, E> graph, V v) {
-
-		indices.put(v, index);
-		lowlinks.put(v, index);
-		index = index+1;
-		stack.push(v);
-
-		for (E e:graph.getEdges()) {
-			if (edgeFilter.evaluate(e)) {
-				V next = graph.getDest(e);
-				if (!indices.containsKey(next)) {
-					buildComponent(graph, next);
-					lowlinks.put(v, Math.min(lowlinks.get(v), lowlinks.get(next)));
-				} else if (stack.contains(next)) {
-					lowlinks.put(v,Math.min(lowlinks.get(v), indices.get(next)));
-				}
+
+	// compute components and the condensation from the adjacency in offsets and targets
+	private void buildComponents(int vertexCount,int edgeCount) {
+		long start = System.nanoTime();
+		componentIds = ComponentSearch.ensureCapacity(componentIds,vertexCount);
+		int componentCount = search.search(vertexCount,offsets,targets,componentIds);
+		searchCompleted(start,vertexCount,edgeCount);
+		start = System.nanoTime();
+		List<Component<V>> components = collectComponents(vertexCount,componentCount);
+
+		// map edges to component ids, the condensation removes duplicates and loops
+		componentSources = ComponentSearch.ensureCapacity(componentSources,edgeCount);
+		componentTargets = ComponentSearch.ensureCapacity(componentTargets,edgeCount);
+		for (int v=0;v<vertexCount;v++) {
+			for (int i=offsets[v];i<offsets[v+1];i++) {
+				componentSources[i] = componentIds[v];
+				componentTargets[i] = componentIds[targets[i]];
 			}
 		}
+		this.condensation = new Condensation<V>(new ArrayList<Set<V>>(components),componentSources,componentTargets,edgeCount,countMultiplicities);
+		condensationCompleted(start,componentCount);
+	}
 
-		// build new component
-		if (lowlinks.get(v).equals(indices.get(v))) {
-			Set<V> component = new HashSet<V>();
-			V v2;
-			do {
-				v2 = stack.pop();
-				component.add(v2);
-				componentMembership.put(v2,component); // look up faster later than searching components!
-			} while (v2!=v);
-			componentGraph.addVertex(component);
+	// report the depth first search to the instrumentation listener
+	private void searchCompleted(long start,int vertexCount,int edgeCount) {
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.SEARCH,System.nanoTime()-start);
+			listener.count(PREFIX+AlgorithmListener.VERTICES_VISITED,vertexCount);
+			listener.count(PREFIX+AlgorithmListener.EDGES_VISITED,edgeCount);
+			listener.record(PREFIX+AlgorithmListener.STACK_DEPTH,search.getMaxDepth());
 		}
+	}
 
+	// report the construction of the components and the condensation to the instrumentation listener
+	private void condensationCompleted(long start,int componentCount) {
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.CONDENSATION,System.nanoTime()-start);
+			listener.count(PREFIX+AlgorithmListener.COMPONENTS,componentCount);
+		}
+	}
 
+	// create the components from the component ids computed by the search
+	private List<Component<V>> collectComponents(int vertexCount,int componentCount) {
+		List<Component<V>> components = new ArrayList<Component<V>>(componentCount);
+		for (int c=0;c<componentCount;c++) {
+			components.add(new Component<V>(c));
+		}
+		for (int v=0;v<vertexCount;v++) {
+			Component<V> component = components.get(componentIds[v]);
+			V vertex = vertices.get(v);
+			component.addMember(vertex);
+			componentMembership.put(vertex,component); // look up faster later than searching components!
+		}
+		return components;
+	}
+
+	// like ensureCapacity, but keeps the content of the array
+	private int[] grow(int[] array,int size) {
+		if (array.length>=size) {
+			return array;
+		}
+		return Arrays.copyOf(array,Math.max(size,2*array.length));
+	}
+
+	/**
+	 * Get the component graph. The graph is built from the condensation when this method is first called.
+	 * There is at most one edge between two components, and there are no loops.
+	 * @return
+	 */
+	public DirectedGraph<Set<V>, Integer> getComponentGraph() {
+		return condensation==null?null:condensation.asGraph();
+	}
+	
+	/**
+	 * Get the compact representation of the component graph.
+	 * @return
+	 */
+	public Condensation<V> getCondensation() {
+		return this.condensation;
+	}
+	
+	public Map<V,Set<V>> getComponentMembership () {
+		return Collections.<V,Set<V>>unmodifiableMap(this.componentMembership);
 	}
 
 }
@@ -0,0 +1,241 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.AlgorithmListener;
+import nz.ac.massey.jung.contrib.util.Instrumentation;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Predicate;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Computes the weakly connected components of a graph (edge directions are ignored) with a concurrent union-find structure.
+ * The parent of each vertex is stored in an AtomicIntegerArray, sets are merged by linking the root with the larger id to the root with the smaller id
+ * using compare-and-set, so the root of each set is its smallest vertex. Finds use path splitting, this compresses paths without locking.
+ * Edges are processed in parallel chunks if there are at least threshold edges. The result does not depend on the order in which edges are processed.
+ * Complexity is O(|V|+|E|*alpha(|V|)) (sequential). Graphs are read into an edge list (two ints per edge), snapshots are used directly,
+ * in addition one int per vertex is used.
+ * Components are numbered in order of their smallest vertex id.
+ * Anderson, R. J., Woll, H. (1991), "Wait-free parallel algorithms for the union-find problem", STOC '91, 370-380, doi:10.1145/103418.103458.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class UnionFindComponents<V,E> {
+
+	public static final int DEFAULT_THRESHOLD = 100000;
+	private static final String PREFIX = "wcc.";
+
+	private ExecutorService executor = null;
+	private int threshold = DEFAULT_THRESHOLD;
+	private Map<V,Component<V>> componentMembership = new HashMap<V,Component<V>>();
+	private int[] componentIds = null;
+	private int componentCount = 0;
+
+	/**
+	 * Create an instance using the default executor for graphs with at least the default threshold number of edges.
+	 */
+	public UnionFindComponents() {
+		this(null,DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param executor the executor, or null to use the default executor
+	 * @param threshold the min number of edges of graphs processed in parallel
+	 */
+	public UnionFindComponents(ExecutorService executor,int threshold) {
+		super();
+		this.executor = executor;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Compute the components. The edges accepted by the filter are copied into an edge list, only the edge list is processed in parallel.
+	 * @param graph
+	 * @param edgeFilter a filter, or null if all edges are to be used. The filter is evaluated once per edge.
+	 */
+	public void buildComponents(Graph<V,E> graph,Predicate<E> edgeFilter) {
+		long start = System.nanoTime();
+		List<V> vertices = new ArrayList<V>(graph.getVertices());
+		Map<V,Integer> vertexIds = new HashMap<V,Integer>(vertices.size()*2);
+		for (int v=0;v<vertices.size();v++) {
+			vertexIds.put(vertices.get(v),v);
+		}
+		int[] sources = new int[graph.getEdgeCount()];
+		int[] targets = new int[graph.getEdgeCount()];
+		int edgeCount = 0;
+		for (E e:graph.getEdges()) {
+			if (edgeFilter!=null && !edgeFilter.evaluate(e)) continue;
+			Pair<V> endpoints = graph.getEndpoints(e);
+			sources[edgeCount] = vertexIds.get(endpoints.getFirst());
+			targets[edgeCount] = vertexIds.get(endpoints.getSecond());
+			edgeCount = edgeCount+1;
+		}
+		buildComponents(vertices,sources,targets,edgeCount,null,null);
+		searchCompleted(start,vertices.size(),graph.getEdgeCount(),edgeFilter!=null);
+	}
+
+	/**
+	 * Compute the components of a graph snapshot.
+	 * @param graph
+	 */
+	public void buildComponents(CompactGraph<V,E> graph) {
+		buildComponents(graph,null);
+	}
+
+	/**
+	 * Compute the components of a graph snapshot.
+	 * @param graph
+	 * @param edgeFilter a filter, or null if all edges are to be used. The filter is evaluated by several threads for large graphs, and must be thread-safe.
+	 */
+	public void buildComponents(CompactGraph<V,E> graph,Predicate<E> edgeFilter) {
+		long start = System.nanoTime();
+		buildComponents(graph.getVertices(),graph.getSources(),graph.getTargets(),graph.getEdgeCount(),graph,edgeFilter);
+		searchCompleted(start,graph.getVertexCount(),graph.getEdgeCount(),edgeFilter!=null);
+	}
+
+	/**
+	 * Compute the components from an edge list.
+	 * @param vertices the vertices by id
+	 * @param sources the source ids of the edges
+	 * @param targets the target ids of the edges
+	 * @param edgeCount the number of edges
+	 * @param graph the snapshot the edges are taken from, only used to look up edges if there is a filter
+	 * @param edgeFilter a filter, or null if all edges are to be used
+	 */
+	private void buildComponents(List<V> vertices,final int[] sources,final int[] targets,int edgeCount,final CompactGraph<V,E> graph,final Predicate<E> edgeFilter) {
+		componentMembership.clear();
+		int vertexCount = vertices.size();
+		final AtomicIntegerArray parents = new AtomicIntegerArray(vertexCount);
+		for (int v=0;v<vertexCount;v++) {
+			parents.set(v,v);
+		}
+
+		if (edgeCount<threshold) {
+			union(graph,edgeFilter,sources,targets,parents,0,edgeCount);
+		}
+		else {
+			int[] ranges = ParallelTasks.split(edgeCount,4*ParallelTasks.getParallelism());
+			List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(ranges.length-1);
+			for (int i=0;i<ranges.length-1;i++) {
+				final int from = ranges[i];
+				final int to = ranges[i+1];
+				tasks.add(new Callable<Object>() {
+					@Override
+					public Object call() throws Exception {
+						union(graph,edgeFilter,sources,targets,parents,from,to);
+						return null;
+					}
+				});
+			}
+			ParallelTasks.invokeAll(executor,tasks);
+		}
+
+		// roots are the smallest vertices of their sets, and roots precede the other members
+		componentIds = new int[vertexCount];
+		componentCount = 0;
+		for (int v=0;v<vertexCount;v++) {
+			int root = find(parents,v);
+			componentIds[v] = root==v?componentCount++:componentIds[root];
+		}
+
+		List<Component<V>> components = new ArrayList<Component<V>>(componentCount);
+		for (int c=0;c<componentCount;c++) {
+			components.add(new Component<V>(c));
+		}
+		for (int v=0;v<vertexCount;v++) {
+			Component<V> component = components.get(componentIds[v]);
+			V vertex = vertices.get(v);
+			component.addMember(vertex);
+			componentMembership.put(vertex,component);
+		}
+	}
+
+	// merge the sets of the end points of the edges from .. to-1
+	private void union(CompactGraph<V,E> graph,Predicate<E> edgeFilter,int[] sources,int[] targets,AtomicIntegerArray parents,int from,int to) {
+		for (int e=from;e<to;e++) {
+			if (edgeFilter!=null && !edgeFilter.evaluate(graph.getEdge(e))) continue;
+			int root1 = find(parents,sources[e]);
+			int root2 = find(parents,targets[e]);
+			while (root1!=root2) {
+				if (root1<root2) {
+					int swap = root1;
+					root1 = root2;
+					root2 = swap;
+				}
+				// link the larger root to the smaller one, this fails if another thread has linked root1 in the meantime
+				if (parents.compareAndSet(root1,root1,root2)) break;
+				root1 = find(parents,root1);
+				root2 = find(parents,root2);
+			}
+		}
+	}
+
+	// find the root, and replace the parent of each vertex on the path by its grandparent
+	private static int find(AtomicIntegerArray parents,int v) {
+		int parent = parents.get(v);
+		while (parent!=v) {
+			int grandparent = parents.get(parent);
+			// may fail if another thread has changed the parent, this is harmless as parents only move closer to the root
+			parents.compareAndSet(v,parent,grandparent);
+			v = parent;
+			parent = grandparent;
+		}
+		return v;
+	}
+
+	// report the union-find pass to the instrumentation listener
+	private void searchCompleted(long start,int vertexCount,int edgeCount,boolean filtered) {
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.SEARCH,System.nanoTime()-start);
+			listener.count(PREFIX+AlgorithmListener.VERTICES_VISITED,vertexCount);
+			listener.count(PREFIX+AlgorithmListener.EDGES_VISITED,edgeCount);
+			if (filtered) {
+				listener.count(PREFIX+AlgorithmListener.PREDICATE_INVOCATIONS,edgeCount);
+			}
+			listener.count(PREFIX+AlgorithmListener.COMPONENTS,componentCount);
+		}
+	}
+
+	/**
+	 * Get the component id of each vertex id of the graph snapshot used in the last run.
+	 * For graphs, vertex ids are the positions of the vertices in the iteration order of getVertices(), as in CompactGraph.
+	 * Ids are dense, and components are numbered in order of their smallest vertex id.
+	 * @return
+	 */
+	public int[] getComponentIds() {
+		return componentIds;
+	}
+
+	/**
+	 * Get the number of components found in the last run.
+	 * @return
+	 */
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	public Map<V,Set<V>> getComponentMembership() {
+		return Collections.<V,Set<V>>unmodifiableMap(componentMembership);
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import nz.ac.massey.jung.contrib.util.AlgorithmListener;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Module membership function that resolves the module of each vertex of a graph only once.
+ * The module of each vertex is resolved into a dense int module id when the membership is first used, and this
+ * table is then shared by all computations in Modularity that are invoked with this graph and this membership,
+ * i.e., the wrapped membership function is not invoked again.
+ * If the graph changes, invalidate() must be called. As a safeguard, the table is rebuilt automatically if the
+ * number of vertices has changed.
+ * For vertices not in the table, transform delegates to the wrapped function.
+ * @author jens dietrich
+ * @param <V> the vertex type
+ * @param <M> the module type
+ */
+public class CachedMembership<V,M> implements Transformer<V,M> {
+
+	private Graph<V,?> graph = null;
+	private Transformer<V,M> moduleMembership = null;
+	private volatile Table<V,M> table = null;
+
+	// the resolved membership
+	static class Table<V,M> {
+		final List<M> modules;
+		final Map<V,Integer> moduleIds;
+		Table(List<M> modules,Map<V,Integer> moduleIds) {
+			super();
+			this.modules = modules;
+			this.moduleIds = moduleIds;
+		}
+	}
+
+	/**
+	 * Create a cached membership.
+	 * @param graph the graph
+	 * @param moduleMembership the membership function to be cached
+	 */
+	public <E> CachedMembership(Graph<V,E> graph,Transformer<V,M> moduleMembership) {
+		super();
+		this.graph = graph;
+		this.moduleMembership = moduleMembership;
+	}
+
+	/**
+	 * Discard the resolved membership, it will be resolved again when needed.
+	 * This must be called when vertices are added or removed, or the module of a vertex changes.
+	 */
+	public void invalidate() {
+		table = null;
+	}
+
+	@Override
+	public M transform(V v) {
+		Table<V,M> table = getTable();
+		Integer id = table.moduleIds.get(v);
+		return id==null?moduleMembership.transform(v):table.modules.get(id);
+	}
+
+	/**
+	 * Get the dense id of the module of a vertex.
+	 * @param v
+	 * @return the module id, or -1 if the vertex is not in the graph
+	 */
+	public int getModuleId(V v) {
+		Integer id = getTable().moduleIds.get(v);
+		return id==null?-1:id;
+	}
+
+	/**
+	 * Get the modules, indexed by module id.
+	 * @return
+	 */
+	public List<M> getModules() {
+		return Collections.unmodifiableList(getTable().modules);
+	}
+
+	public Graph<V,?> getGraph() {
+		return graph;
+	}
+
+	/**
+	 * Get the resolved membership, if this membership has been created for the given graph.
+	 * @param g
+	 * @return the table, or null
+	 */
+	Table<V,M> getTable(Graph<V,?> g) {
+		return g==graph?getTable():null;
+	}
+
+	private Table<V,M> getTable() {
+		Table<V,M> table = this.table;
+		if (table==null || table.moduleIds.size()!=graph.getVertexCount()) {
+			synchronized (this) {
+				table = this.table;
+				if (table==null || table.moduleIds.size()!=graph.getVertexCount()) {
+					table = resolve(graph,moduleMembership);
+					this.table = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Resolve the module of each vertex of a graph.
+	 * @param graph
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,M> Table<V,M> resolve(Graph<V,?> graph,Transformer<V,M> moduleMembership) {
+		long start = System.nanoTime();
+		List<M> modules = new ArrayList<M>();
+		Map<M,Integer> ids = new HashMap<M,Integer>();
+		Map<V,Integer> moduleIds = new HashMap<V,Integer>(graph.getVertexCount()*2);
+		for (V v:graph.getVertices()) {
+			M c = moduleMembership.transform(v);
+			Integer id = ids.get(c);
+			if (id==null) {
+				id = modules.size();
+				ids.put(c,id);
+				modules.add(c);
+			}
+			moduleIds.put(v,id);
+		}
+		ModuleStatistics.membershipResolved(start,graph.getVertexCount(),AlgorithmListener.TRANSFORMER_INVOCATIONS);
+		return new Table<V,M>(modules,moduleIds);
+	}
+}
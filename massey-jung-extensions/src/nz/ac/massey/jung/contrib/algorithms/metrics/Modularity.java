@@ -9,100 +9,155 @@
 
 package nz.ac.massey.jung.contrib.algorithms.metrics;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import org.apache.commons.collections15.Predicate;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.io.GraphFile;
+import nz.ac.massey.jung.contrib.util.AlgorithmListener;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
 import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Pair;
 
 /**
  * Implementation of several metrics related to modularity.
  * See M. E. J. Newman: Modularity and community structure in networks. http://www.ncbi.nlm.nih.gov/pmc/articles/PMC1482622/
+ * If several metrics are computed for the same graph, the module membership function can be wrapped using cache(..),
+ * then module membership is only resolved once.
+ * The time spent resolving membership and traversing edges, and the number of vertices, edges and membership function invocations
+ * are reported to the listener set in Instrumentation, using the prefix "modularity.".
  * @author jens dietrich
  */
 public class Modularity {
+	
 	/**
-	 * Compute the modularity of a graph. Module membership is defined by a function. 
+	 * Whether edge directions are taken into account.
+	 * UNDIRECTED uses Newman's definition, this is what the methods without a mode parameter compute for all graphs, graph snapshots and graph files.
+	 * DIRECTED uses the definition by Leicht and Newman, Q = 1/m sum_ij [A_ij - k_i^out*k_j^in/m] delta(c_i,c_j),
+	 * see E. A. Leicht, M. E. J. Newman: Community structure in directed networks. http://arxiv.org/abs/0709.4500
+	 * AUTO uses the directed definition if the graph is a DirectedGraph, and the undirected definition otherwise.
+	 */
+	public static enum Mode {UNDIRECTED,DIRECTED,AUTO}
+	
+	/**
+	 * Compute the modularity of a graph. Module membership is defined by a function.
+	 * Instead of summing over all vertex pairs, this uses the equivalent edge based formula Q = sum_c [e_c/m - (d_c/2m)^2],
+	 * where e_c is the number of edges within module c and d_c is the sum of the degrees of the vertices in c.
+	 * Every edge is counted: parallel and reciprocal edges count as separate edges, and a loop is an edge within its module that adds 2 to the degree sum.
+	 * This is the same value as computed for graph snapshots and graph files, and by ModularityTracker, ModularityGain and ModularitySignificance.
+	 * Complexity is O(|V|+|E|).
 	 * @param g
 	 * @param moduleMembership
 	 * @return
+	 * @see #computePairwiseModularity(Graph, Transformer)
 	 */
 	public static <V,E,M> double computeModularity (Graph<V,E> g,Transformer<V,M> moduleMembership) {
-		//  simple check whether there are components (O(N))
-		Set<M> components = getComponents (g,moduleMembership);
-		if (components.size()==1) return 0;
-		
-		double sum = 0;
-		double m2 = (double)(2*g.getEdgeCount());
-		
-		for (V v1:g.getVertices()) {
-			for (V v2:g.getVertices()) {
-				M c1 = moduleMembership.transform(v1);
-				M c2 = moduleMembership.transform(v2);
-				if (c1.equals(c2)) {
-					double delta = (g.isNeighbor(v1,v2)?1:0) - (double)g.degree(v1)*(double)g.degree(v2)/m2;
-					// System.out.println("delta for vertex pair " + v1 + " , " + v2 + " is " + delta);
-					sum = sum+delta;		
-				}
-			}
-		}
-		return sum/m2;
+		return ModuleStatistics.collect(g,moduleMembership).modularity();
+	}
+	
+	/**
+	 * Compute the modularity of a graph using the pairwise definition Q = 1/2m sum_ij [A_ij - k_i*k_j/2m] delta(c_i,c_j),
+	 * where A_ij is 1 if i and j are neighbours (in any direction) and 0 otherwise, and k_i is the degree of i as reported by the graph.
+	 * Reciprocal and parallel edges therefore connect two vertices only once, and a loop counts once in A_ii and in k_i.
+	 * Earlier versions computed this value in computeModularity, for graphs without loops, parallel and reciprocal edges both are the same.
+	 * The neighbours of each vertex are traversed once, complexity is O(|V|+|E|).
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public static <V,E,M> double computePairwiseModularity (Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collectPairwise(g,moduleMembership).modularity();
 	}
 	
 	/**
 	 * Compute the modularity for a single module. Module membership is defined by a predicate (whether a vertex is in this module or not)
+	 * The predicate is evaluated once per vertex, complexity is O(|V|+|E|).
 	 * @param g
 	 * @param moduleMembership
 	 * @return
 	 */
 	public static <V,E,M> double computeModuleModularity (Graph<V,E> g,Predicate<V> moduleMembership) {
+		double m = g.getEdgeCount();
+		if (m==0) return 0;
 		
-		double sum = 0;
-		double m2 = (double)(2*g.getEdgeCount());
-		
-		// collect and filter first to prevent VxV double traversal of all nodes
+		// evaluate the predicate once per vertex, then traverse the edges
+		long start = System.nanoTime();
 		Set<V> nodes = new HashSet<V>();
 		for (V v:g.getVertices()) {
-			nodes.add(v);
-		}
-		for (V v1:nodes) {
-			for (V v2:nodes) {
-				if (moduleMembership.evaluate(v1) & moduleMembership.evaluate(v2)) {
-					double delta = (g.isNeighbor(v1,v2)?1:0) - (double)g.degree(v1)*(double)g.degree(v2)/m2;
-					// System.out.println("delta for vertex pair " + v1 + " , " + v2 + " is " + delta);
-					sum = sum+delta;		
-				}
+			if (moduleMembership.evaluate(v)) {
+				nodes.add(v);
 			}
 		}
-		return sum/m2;
+		ModuleStatistics.membershipResolved(start,g.getVertexCount(),AlgorithmListener.PREDICATE_INVOCATIONS);
+		start = System.nanoTime();
+		double internalEdges = 0;
+		double degrees = 0;
+		for (E e:g.getEdges()) {
+			Pair<V> endpoints = g.getEndpoints(e);
+			boolean b1 = nodes.contains(endpoints.getFirst());
+			boolean b2 = nodes.contains(endpoints.getSecond());
+			if (b1) degrees = degrees+1;
+			if (b2) degrees = degrees+1;
+			if (b1 && b2) internalEdges = internalEdges+1;
+		}
+		ModuleStatistics.edgesCollected(start,g.getEdgeCount());
+		double a = degrees/(2*m);
+		return internalEdges/m - a*a;
+	}
+	
+	/**
+	 * Compute the modularity of all modules in one pass. Module membership is defined by a function.
+	 * The sum of the values is the modularity of the graph. Complexity is O(|V|+|E|).
+	 * @param g
+	 * @param moduleMembership
+	 * @return a map associating modules with their modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeModuleModularities (Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collect(g,moduleMembership).moduleModularities();
+	}
+	
+	/**
+	 * Compute the k modules with the highest modularity. The modularity of all modules is computed in one pass,
+	 * but only k modules are retained.
+	 * @param g
+	 * @param moduleMembership
+	 * @param k
+	 * @return a map associating modules with their modularity, iteration order is by decreasing modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeTopModuleModularities (Graph<V,E> g,Transformer<V,M> moduleMembership,int k) {
+		return ModuleStatistics.collect(g,moduleMembership).rankModuleModularities(k,true);
+	}
+	
+	/**
+	 * Compute the k modules with the lowest modularity. The modularity of all modules is computed in one pass,
+	 * but only k modules are retained.
+	 * @param g
+	 * @param moduleMembership
+	 * @param k
+	 * @return a map associating modules with their modularity, iteration order is by increasing modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeBottomModuleModularities (Graph<V,E> g,Transformer<V,M> moduleMembership,int k) {
+		return ModuleStatistics.collect(g,moduleMembership).rankModuleModularities(k,false);
 	}
 	
-
 	/**
 	 * Compute the max modularity of a graph.
 	 * Aka assortativity coefficient. This is used for scaling. 
+	 * Computed as 1 - sum_c (d_c/2m)^2 in O(|V|+|E|).
 	 * @param g
 	 * @param moduleMembership
 	 * @return
 	 */
 	public static <V,E,M> double computeMaxModularity (Graph<V,E> g,Transformer<V,M> moduleMembership) {
-		
-		double m2 = (double)(2*g.getEdgeCount());
-		double sum = m2;
-		
-		
-		for (V v1:g.getVertices()) {
-			for (V v2:g.getVertices()) {
-				M c1 = moduleMembership.transform(v1);
-				M c2 = moduleMembership.transform(v2);
-				if (c1.equals(c2)) {
-					double delta = (double)g.degree(v1)*(double)g.degree(v2)/m2;
-					// System.out.println("delta for vertex pair " + v1 + " , " + v2 + " is " + delta);
-					sum = sum-delta;		
-				}
-			}
-		}
-		return sum/m2;
+		return ModuleStatistics.collect(g,moduleMembership).maxModularity();
 	}
 	
 	/**
@@ -112,8 +167,8 @@ public class Modularity {
 	 * @return
 	 */
 	public static <V,E,M> double computeScaledModularity(Graph<V,E> g,Transformer<V,M> moduleMembership) {
-		double modularity = computeModularity(g,moduleMembership);
-		return computeScaledModularity(g,moduleMembership,modularity);
+		// modularity and max modularity are both derived from the same statistics
+		return ModuleStatistics.collect(g,moduleMembership).scaledModularity();
 	}
 	
 	/**
@@ -129,6 +184,18 @@ public class Modularity {
 	}
 
 	
+	/**
+	 * Compute modularity, max modularity and scaled modularity together with the number of modules and
+	 * the internal and external edge counts of each module. All values are derived from one pass over the graph,
+	 * this is cheaper than calling the respective methods one by one.
+	 * @param g
+	 * @param moduleMembership
+	 * @return a report
+	 */
+	public static <V,E,M> ModularityReport<M> computeReport(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return new ModularityReport<M>(ModuleStatistics.collect(g,moduleMembership));
+	}
+	
 	/**
 	 * Get the components in the graph.
 	 * @param g
@@ -136,10 +203,484 @@ public class Modularity {
 	 * @return a set of components.
 	 */
 	public static <V,E,M> Set<M> getComponents (Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		if (moduleMembership instanceof CachedMembership) {
+			CachedMembership<V,M> cached = (CachedMembership<V,M>)moduleMembership;
+			if (cached.getGraph()==g) {
+				return new HashSet<M>(cached.getModules());
+			}
+		}
 		Set<M> components = new HashSet<M>();
 		for (V v:g.getVertices()) {
 			components.add(moduleMembership.transform(v));
 		}
 		return components;
 	}
+	
+	/**
+	 * Create a module membership function for a graph that resolves the module of each vertex only once,
+	 * and shares the result between all computations on this graph.
+	 * The cache must be invalidated when the graph changes.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 * @see CachedMembership
+	 */
+	public static <V,E,M> CachedMembership<V,M> cache (Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return new CachedMembership<V,M>(g,moduleMembership);
+	}
+	
+	/**
+	 * Compute the modularity of a graph snapshot. Module membership is defined by a function.
+	 * Module membership is resolved once per vertex, the edges are then traversed using the int arrays of the snapshot.
+	 * This is the same as computeModularity(Graph,Transformer) on the graph.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public static <V,E,M> double computeModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collect(g,moduleMembership).modularity();
+	}
+	
+	/**
+	 * Compute the modularity for a single module of a graph snapshot. Module membership is defined by a predicate.
+	 * The predicate is evaluated once per vertex, complexity is O(|V|+|E|).
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public static <V,E> double computeModuleModularity (CompactGraph<V,E> g,Predicate<V> moduleMembership) {
+		int m = g.getEdgeCount();
+		if (m==0) return 0;
+		long start = System.nanoTime();
+		boolean[] inModule = new boolean[g.getVertexCount()];
+		for (int v=0;v<inModule.length;v++) {
+			inModule[v] = moduleMembership.evaluate(g.getVertex(v));
+		}
+		ModuleStatistics.membershipResolved(start,inModule.length,AlgorithmListener.PREDICATE_INVOCATIONS);
+		start = System.nanoTime();
+		int[] sources = g.getSources();
+		int[] targets = g.getTargets();
+		double internalEdges = 0;
+		double degrees = 0;
+		for (int e=0;e<m;e++) {
+			boolean b1 = inModule[sources[e]];
+			boolean b2 = inModule[targets[e]];
+			if (b1) degrees = degrees+1;
+			if (b2) degrees = degrees+1;
+			if (b1 && b2) internalEdges = internalEdges+1;
+		}
+		ModuleStatistics.edgesCollected(start,m);
+		double a = degrees/(2*m);
+		return internalEdges/m - a*a;
+	}
+	
+	/**
+	 * Compute the modularity of all modules of a graph snapshot in one pass.
+	 * @param g
+	 * @param moduleMembership
+	 * @return a map associating modules with their modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeModuleModularities (CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collect(g,moduleMembership).moduleModularities();
+	}
+	
+	/**
+	 * Compute the k modules of a graph snapshot with the highest modularity.
+	 * @param g
+	 * @param moduleMembership
+	 * @param k
+	 * @return a map associating modules with their modularity, iteration order is by decreasing modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeTopModuleModularities (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,int k) {
+		return ModuleStatistics.collect(g,moduleMembership).rankModuleModularities(k,true);
+	}
+	
+	/**
+	 * Compute the k modules of a graph snapshot with the lowest modularity.
+	 * @param g
+	 * @param moduleMembership
+	 * @param k
+	 * @return a map associating modules with their modularity, iteration order is by increasing modularity
+	 */
+	public static <V,E,M> Map<M,Double> computeBottomModuleModularities (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,int k) {
+		return ModuleStatistics.collect(g,moduleMembership).rankModuleModularities(k,false);
+	}
+	
+	/**
+	 * Compute a modularity report for a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return a report
+	 * @see #computeReport(Graph, Transformer)
+	 */
+	public static <V,E,M> ModularityReport<M> computeReport(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return new ModularityReport<M>(ModuleStatistics.collect(g,moduleMembership));
+	}
+	
+	/**
+	 * Compute the max modularity of a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public static <V,E,M> double computeMaxModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collect(g,moduleMembership).maxModularity();
+	}
+	
+	/**
+	 * Compute modularity of a graph snapshot scaled to [-1,1].
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public static <V,E,M> double computeScaledModularity(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return ModuleStatistics.collect(g,moduleMembership).scaledModularity();
+	}
+	
+	/**
+	 * Compute the modularity of a graph snapshot in parallel. Small graphs are evaluated sequentially.
+	 * The membership function must be thread-safe.
+	 * @param g
+	 * @param moduleMembership
+	 * @param executor the executor to be used, or null for the shared default executor
+	 * @return
+	 * @see ParallelModularity
+	 */
+	public static <V,E,M> double computeParallelModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,ExecutorService executor) {
+		return new ParallelModularity(executor).computeModularity(g,moduleMembership);
+	}
+	
+	/**
+	 * Compute the max modularity of a graph snapshot in parallel. Small graphs are evaluated sequentially.
+	 * The membership function must be thread-safe.
+	 * @param g
+	 * @param moduleMembership
+	 * @param executor the executor to be used, or null for the shared default executor
+	 * @return
+	 * @see ParallelModularity
+	 */
+	public static <V,E,M> double computeParallelMaxModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,ExecutorService executor) {
+		return new ParallelModularity(executor).computeMaxModularity(g,moduleMembership);
+	}
+	
+	/**
+	 * Compute the modularity for a single module of a graph snapshot in parallel. Small graphs are evaluated sequentially.
+	 * The predicate must be thread-safe.
+	 * @param g
+	 * @param moduleMembership
+	 * @param executor the executor to be used, or null for the shared default executor
+	 * @return
+	 * @see ParallelModularity
+	 */
+	public static <V,E> double computeParallelModuleModularity (CompactGraph<V,E> g,Predicate<V> moduleMembership,ExecutorService executor) {
+		return new ParallelModularity(executor).computeModuleModularity(g,moduleMembership);
+	}
+	
+	/**
+	 * Compute the modularity of a graph, using the directed or the undirected definition of modularity.
+	 * The directed definition is computed from the out and in degree sums of the modules, complexity is O(|V|+|E|).
+	 * In directed mode, undirected edges are counted as two arcs in opposite directions.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return
+	 */
+	public static <V,E,M> double computeModularity (Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		return collect(g,moduleMembership,mode).modularity();
+	}
+	
+	/**
+	 * Compute the max modularity of a graph, using the directed or the undirected definition of modularity.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return
+	 * @see #computeModularity(Graph, Transformer, Mode)
+	 */
+	public static <V,E,M> double computeMaxModularity (Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		return collect(g,moduleMembership,mode).maxModularity();
+	}
+	
+	/**
+	 * Compute modularity scaled to [-1,1], using the directed or the undirected definition of modularity.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return
+	 * @see #computeModularity(Graph, Transformer, Mode)
+	 */
+	public static <V,E,M> double computeScaledModularity (Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		return collect(g,moduleMembership,mode).scaledModularity();
+	}
+	
+	/**
+	 * Compute the modularity of all modules in one pass, using the directed or the undirected definition of modularity.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return a map associating modules with their modularity
+	 * @see #computeModularity(Graph, Transformer, Mode)
+	 */
+	public static <V,E,M> Map<M,Double> computeModuleModularities (Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		return collect(g,moduleMembership,mode).moduleModularities();
+	}
+	
+	/**
+	 * Compute a modularity report, using the directed or the undirected definition of modularity.
+	 * In directed mode, edge counts in the report are arc counts.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return a report
+	 * @see #computeModularity(Graph, Transformer, Mode)
+	 */
+	public static <V,E,M> ModularityReport<M> computeReport(Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		return new ModularityReport<M>(collect(g,moduleMembership,mode));
+	}
+	
+	/**
+	 * Compute the modularity of a graph snapshot, using the directed or the undirected definition of modularity.
+	 * AUTO selects the directed definition if all edges of the snapshot are directed.
+	 * @param g
+	 * @param moduleMembership
+	 * @param mode
+	 * @return
+	 * @see #computeModularity(Graph, Transformer, Mode)
+	 */
+	public static <V,E,M> double computeModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		boolean directed = mode==Mode.DIRECTED;
+		if (mode==Mode.AUTO) {
+			directed = true;
+			for (int e=0;e<g.getEdgeCount() && directed;e++) {
+				directed = g.isDirected(e);
+			}
+		}
+		return (directed?ModuleStatistics.collectDirected(g,moduleMembership):ModuleStatistics.collect(g,moduleMembership)).modularity();
+	}
+	
+	private static <V,E,M> ModuleStatistics<M> collect(Graph<V,E> g,Transformer<V,M> moduleMembership,Mode mode) {
+		if (mode==Mode.DIRECTED || (mode==Mode.AUTO && g instanceof DirectedGraph)) {
+			return ModuleStatistics.collectDirected(g,moduleMembership);
+		}
+		return ModuleStatistics.collect(g,moduleMembership);
+	}
+	
+	/**
+	 * Compute the modularity of a graph with weighted edges. Module membership is defined by a function.
+	 * Edges are counted with their weights, and vertex degrees are replaced by strengths (the sum of the weights of the incident edges):
+	 * Q = sum_c [w_c/W - (s_c/2W)^2], where w_c is the weight of the edges within module c, s_c is the sum of the strengths of the
+	 * vertices in c and W is the total weight. Weights are read once per edge, complexity is O(|V|+|E|).
+	 * With all weights 1, this is the same as computeModularity(g,moduleMembership).
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 */
+	public static <V,E,M> double computeWeightedModularity (Graph<V,E> g,Transformer<V,M> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		return computeWeightedModularity(new CompactGraph<V,E>(g),moduleMembership,edgeWeights);
+	}
+	
+	/**
+	 * Compute the max modularity of a graph with weighted edges, 1 - sum_c (s_c/2W)^2.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 * @see #computeWeightedModularity(Graph, Transformer, Transformer)
+	 */
+	public static <V,E,M> double computeWeightedMaxModularity (Graph<V,E> g,Transformer<V,M> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		return computeWeightedMaxModularity(new CompactGraph<V,E>(g),moduleMembership,edgeWeights);
+	}
+	
+	/**
+	 * Compute the modularity for a single module of a graph with weighted edges. Module membership is defined by a predicate.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 * @see #computeWeightedModularity(Graph, Transformer, Transformer)
+	 */
+	public static <V,E> double computeWeightedModuleModularity (Graph<V,E> g,Predicate<V> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		return computeWeightedModuleModularity(new CompactGraph<V,E>(g),moduleMembership,edgeWeights);
+	}
+	
+	/**
+	 * Compute the modularity of a graph snapshot with weighted edges.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 * @see #computeWeightedModularity(Graph, Transformer, Transformer)
+	 */
+	public static <V,E,M> double computeWeightedModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		return ModuleStatistics.collect(g,moduleMembership,edgeWeights).modularity();
+	}
+	
+	/**
+	 * Compute the max modularity of a graph snapshot with weighted edges.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 * @see #computeWeightedMaxModularity(Graph, Transformer, Transformer)
+	 */
+	public static <V,E,M> double computeWeightedMaxModularity (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		return ModuleStatistics.collect(g,moduleMembership,edgeWeights).maxModularity();
+	}
+	
+	/**
+	 * Compute the modularity for a single module of a graph snapshot with weighted edges.
+	 * The predicate is evaluated once per vertex, and the weights once per edge.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights the edge weights, weights must not be negative
+	 * @return
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 */
+	public static <V,E> double computeWeightedModuleModularity (CompactGraph<V,E> g,Predicate<V> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		long start = System.nanoTime();
+		int[] membership = new int[g.getVertexCount()];
+		for (int v=0;v<membership.length;v++) {
+			// module 0 is the module, module 1 is everything else
+			membership[v] = moduleMembership.evaluate(g.getVertex(v))?0:1;
+		}
+		ModuleStatistics.membershipResolved(start,membership.length,AlgorithmListener.PREDICATE_INVOCATIONS);
+		double[] weights = ModuleStatistics.getWeights(g,edgeWeights);
+		return ModuleStatistics.collect(Arrays.asList(true,false),membership,g.getSources(),g.getTargets(),weights,g.getEdgeCount()).moduleModularity(0);
+	}
+	
+	/**
+	 * Compute modularity with a resolution parameter gamma, Q_gamma = sum_c [e_c/m - gamma*(d_c/2m)^2], for several values of gamma.
+	 * Values of gamma larger than 1 favour smaller modules, values smaller than 1 favour larger modules. With gamma=1, this is computeModularity(g,moduleMembership).
+	 * As for computeModularity, all values are 0 if there is only one module.
+	 * The per module aggregates are collected once in O(|V|+|E|), each value of gamma then costs O(1).
+	 * See J. Reichardt, S. Bornholdt: Statistical mechanics of community detection. http://arxiv.org/abs/cond-mat/0603718
+	 * @param g
+	 * @param moduleMembership
+	 * @param resolutions the values of gamma
+	 * @return the modularity for each value of gamma
+	 */
+	public static <V,E,M> double[] computeModularities (Graph<V,E> g,Transformer<V,M> moduleMembership,double[] resolutions) {
+		return ModuleStatistics.collect(g,moduleMembership).modularities(resolutions);
+	}
+	
+	/**
+	 * Compute modularity with a resolution parameter for several values of gamma on a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @param resolutions the values of gamma
+	 * @return the modularity for each value of gamma
+	 * @see #computeModularities(Graph, Transformer, double[])
+	 */
+	public static <V,E,M> double[] computeModularities (CompactGraph<V,E> g,Transformer<V,M> moduleMembership,double[] resolutions) {
+		return ModuleStatistics.collect(g,moduleMembership).modularities(resolutions);
+	}
+	
+	/**
+	 * Compute modularity with a resolution parameter for several candidate memberships and several values of gamma on a graph snapshot.
+	 * The adjacency of the snapshot is shared, each membership costs O(|V|+|E|) and each value of gamma O(1).
+	 * @param g
+	 * @param moduleMemberships the candidate memberships
+	 * @param resolutions the values of gamma
+	 * @return the modularity for each membership (first index) and each value of gamma (second index)
+	 * @see #computeModularities(Graph, Transformer, double[])
+	 */
+	public static <V,E> double[][] computeModularities (CompactGraph<V,E> g,List<? extends Transformer<V,?>> moduleMemberships,double[] resolutions) {
+		double[][] values = new double[moduleMemberships.size()][];
+		for (int i=0;i<values.length;i++) {
+			values[i] = computeModularities(g,moduleMemberships.get(i),resolutions);
+		}
+		return values;
+	}
+	
+	/**
+	 * Compute modularity with a resolution parameter for several candidate memberships and several values of gamma on a graph snapshot.
+	 * Memberships are evaluated in parallel, each by one task. The membership functions must be thread-safe.
+	 * @param g
+	 * @param moduleMemberships the candidate memberships
+	 * @param resolutions the values of gamma
+	 * @param executor the executor to be used, or null for the shared default executor
+	 * @return the modularity for each membership (first index) and each value of gamma (second index)
+	 * @see #computeModularities(Graph, Transformer, double[])
+	 */
+	public static <V,E> double[][] computeModularities (final CompactGraph<V,E> g,List<? extends Transformer<V,?>> moduleMemberships,final double[] resolutions,ExecutorService executor) {
+		List<Callable<double[]>> tasks = new ArrayList<Callable<double[]>>(moduleMemberships.size());
+		for (final Transformer<V,?> moduleMembership:moduleMemberships) {
+			tasks.add(new Callable<double[]>() {
+				@Override
+				public double[] call() throws Exception {
+					return computeModularities(g,moduleMembership,resolutions);
+				}
+			});
+		}
+		return ParallelTasks.invokeAll(executor,tasks).toArray(new double[moduleMemberships.size()][]);
+	}
+	
+	/**
+	 * Get evenly spaced values of the resolution parameter gamma, to be used with computeModularities.
+	 * @param from the first value
+	 * @param to the last value
+	 * @param count the number of values
+	 * @return
+	 */
+	public static double[] getResolutions(double from,double to,int count) {
+		double[] resolutions = new double[count];
+		for (int i=0;i<count;i++) {
+			resolutions[i] = count==1?from:from+(to-from)*i/(count-1);
+		}
+		return resolutions;
+	}
+	
+	/**
+	 * Compute the modularity of a graph stored in a memory mapped graph file. Module membership is read from the module column of the file.
+	 * The adjacency is traversed in the mapped buffers, only the per module aggregates are kept on the heap.
+	 * @param g
+	 * @return
+	 * @see nz.ac.massey.jung.contrib.io.GraphFiles#writeGraph(Graph, Transformer, java.io.File)
+	 */
+	public static double computeModularity (GraphFile<?> g) {
+		return ModuleStatistics.collect(g).modularity();
+	}
+	
+	/**
+	 * Compute the modularity of all modules of a graph stored in a graph file in one pass.
+	 * @param g
+	 * @return a map associating module labels with their modularity
+	 */
+	public static Map<String,Double> computeModuleModularities (GraphFile<?> g) {
+		return ModuleStatistics.collect(g).moduleModularities();
+	}
+	
+	/**
+	 * Compute the max modularity of a graph stored in a graph file.
+	 * @param g
+	 * @return
+	 */
+	public static double computeMaxModularity (GraphFile<?> g) {
+		return ModuleStatistics.collect(g).maxModularity();
+	}
+	
+	/**
+	 * Compute modularity of a graph stored in a graph file scaled to [-1,1].
+	 * @param g
+	 * @return
+	 */
+	public static double computeScaledModularity(GraphFile<?> g) {
+		return ModuleStatistics.collect(g).scaledModularity();
+	}
+	
+	/**
+	 * Compute a modularity report for a graph stored in a graph file, modules are identified by their labels.
+	 * @param g
+	 * @return a report
+	 * @see #computeReport(Graph, Transformer)
+	 */
+	public static ModularityReport<String> computeReport(GraphFile<?> g) {
+		return new ModularityReport<String>(ModuleStatistics.collect(g));
+	}
 }
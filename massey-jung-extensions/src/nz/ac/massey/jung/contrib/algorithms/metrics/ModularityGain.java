@@ -0,0 +1,395 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Answers "what if" queries about modularity: the change of modularity (delta Q) if a vertex, or a set of vertices, moves to another module.
+ * The module of each vertex is resolved once when the instance is created, together with the internal edge count e_c and the
+ * degree sum d_c of each module and the neighbours of each vertex. Moving vertex v with degree k from module a to module b changes
+ * modularity by (l_b-l_a)/m - k(d_b-d_a+k)/2m^2, where l_c is the number of edges between v and other vertices in module c.
+ * Queries are therefore O(degree), and nothing is changed by a query. Every edge is counted and edge directions are ignored, as in Modularity.Mode.UNDIRECTED.
+ * The graph is not observed, if it changes a new instance must be created. Instances are immutable, queries are thread-safe.
+ * @author jens dietrich
+ * @param <V> the vertex type
+ * @param <M> the module type
+ */
+public class ModularityGain<V,M> {
+
+	/**
+	 * A move of a vertex to another module, and the resulting change of modularity.
+	 * @param <V> the vertex type
+	 * @param <M> the module type
+	 */
+	public static class Move<V,M> {
+		private V vertex = null;
+		private M module = null;
+		private double gain = 0;
+
+		Move(V vertex,M module,double gain) {
+			super();
+			this.vertex = vertex;
+			this.module = module;
+			this.gain = gain;
+		}
+		public V getVertex() {
+			return vertex;
+		}
+		/**
+		 * Get the module the vertex moves to.
+		 * @return
+		 */
+		public M getModule() {
+			return module;
+		}
+		/**
+		 * Get the change of modularity.
+		 * @return
+		 */
+		public double getGain() {
+			return gain;
+		}
+		@Override
+		public String toString() {
+			return "move " + vertex + " to " + module + " (" + gain + ")";
+		}
+	}
+
+	// a move found while ranking, using vertex and module ids
+	private static class Candidate {
+		final int vertex;
+		final int module;
+		final double gain;
+		Candidate(int vertex,int module,double gain) {
+			super();
+			this.vertex = vertex;
+			this.module = module;
+			this.gain = gain;
+		}
+	}
+
+	// orders candidates by gain, ties are broken by vertex and module id (lower ids rank higher)
+	private static final Comparator<Candidate> WORST_FIRST = new Comparator<Candidate>() {
+		@Override
+		public int compare(Candidate c1,Candidate c2) {
+			int result = Double.compare(c1.gain,c2.gain);
+			if (result==0) result = c2.vertex-c1.vertex;
+			if (result==0) result = c2.module-c1.module;
+			return result;
+		}
+	};
+
+	private CompactGraph<V,?> graph = null;
+	private ModuleStatistics<M> statistics = null;
+	private Map<M,Integer> moduleIds = null;
+	private int[] membership = null;
+	// the neighbours of each vertex in CSR form, edges are recorded at both end points, loops only once
+	private int[] offsets = null;
+	private int[] neighbours = null;
+	// vertex degrees, loops contribute 2
+	private int[] degrees = null;
+	private int threshold = ParallelModularity.DEFAULT_THRESHOLD;
+	private int taskCount = 4*ParallelTasks.getParallelism();
+
+	/**
+	 * Create an instance for a graph. Module membership is defined by a function.
+	 * @param g
+	 * @param moduleMembership
+	 */
+	public <E> ModularityGain(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		this(new CompactGraph<V,E>(g),moduleMembership);
+	}
+
+	/**
+	 * Create an instance for a graph snapshot. Module membership is defined by a function.
+	 * @param g
+	 * @param moduleMembership
+	 */
+	public <E> ModularityGain(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		super();
+		this.graph = g;
+		int vertexCount = g.getVertexCount();
+		List<M> modules = new ArrayList<M>();
+		this.moduleIds = new HashMap<M,Integer>();
+		this.membership = new int[vertexCount];
+		for (int v=0;v<vertexCount;v++) {
+			M c = moduleMembership.transform(g.getVertex(v));
+			Integer id = moduleIds.get(c);
+			if (id==null) {
+				id = modules.size();
+				moduleIds.put(c,id);
+				modules.add(c);
+			}
+			membership[v] = id;
+		}
+		int edgeCount = g.getEdgeCount();
+		int[] sources = g.getSources();
+		int[] targets = g.getTargets();
+		this.statistics = ModuleStatistics.collect(modules,membership,sources,targets,edgeCount);
+
+		// undirected adjacency
+		this.degrees = new int[vertexCount];
+		int[] counts = new int[vertexCount];
+		for (int e=0;e<edgeCount;e++) {
+			degrees[sources[e]] = degrees[sources[e]]+1;
+			degrees[targets[e]] = degrees[targets[e]]+1;
+			counts[sources[e]] = counts[sources[e]]+1;
+			if (sources[e]!=targets[e]) {
+				counts[targets[e]] = counts[targets[e]]+1;
+			}
+		}
+		this.offsets = new int[vertexCount+1];
+		for (int v=0;v<vertexCount;v++) {
+			offsets[v+1] = offsets[v]+counts[v];
+		}
+		this.neighbours = new int[offsets[vertexCount]];
+		// reuse counts as insert positions
+		System.arraycopy(offsets,0,counts,0,vertexCount);
+		for (int e=0;e<edgeCount;e++) {
+			int source = sources[e];
+			int target = targets[e];
+			neighbours[counts[source]++] = target;
+			if (source!=target) {
+				neighbours[counts[target]++] = source;
+			}
+		}
+	}
+
+	/**
+	 * Get the modularity for the current module membership.
+	 * @return
+	 */
+	public double getModularity() {
+		return statistics.modularity();
+	}
+
+	/**
+	 * Get the current module of a vertex.
+	 * @param v
+	 * @return
+	 */
+	public M getModule(V v) {
+		return statistics.modules.get(membership[getVertexId(v)]);
+	}
+
+	/**
+	 * Compute the change of modularity if a vertex moves to another module. The module does not have to exist,
+	 * in this case the vertex would form a new module on its own. Complexity is O(degree).
+	 * @param v the vertex
+	 * @param module the module the vertex moves to
+	 * @return the change of modularity, 0 if the vertex already is in this module
+	 */
+	public double computeGain(V v,M module) {
+		Integer to = moduleIds.get(module);
+		return computeGain(getVertexId(v),to==null?-1:to);
+	}
+
+	/**
+	 * Compute the change of modularity if several vertices move to other modules at the same time.
+	 * Modules do not have to exist. Complexity is O(sum of the degrees of the vertices moved).
+	 * @param moves a map associating vertices with the modules they move to
+	 * @return the change of modularity
+	 */
+	public double computeGain(Map<V,M> moves) {
+		double m = statistics.edgeCount;
+		if (m==0) return 0;
+		int moduleCount = statistics.getModuleCount();
+
+		// the new module of each moved vertex, modules that do not exist yet get ids starting at moduleCount
+		Map<Integer,Integer> moved = new HashMap<Integer,Integer>(moves.size()*2);
+		Map<M,Integer> newModuleIds = new HashMap<M,Integer>();
+		for (Map.Entry<V,M> move:moves.entrySet()) {
+			int v = getVertexId(move.getKey());
+			Integer to = moduleIds.get(move.getValue());
+			if (to==null) {
+				to = newModuleIds.get(move.getValue());
+				if (to==null) {
+					to = moduleCount+newModuleIds.size();
+					newModuleIds.put(move.getValue(),to);
+				}
+			}
+			if (to!=membership[v]) {
+				moved.put(v,to);
+			}
+		}
+
+		// changes of the internal edge counts and degree sums of the modules affected, indexed by module id
+		Map<Integer,double[]> changes = new HashMap<Integer,double[]>();
+		for (Map.Entry<Integer,Integer> move:moved.entrySet()) {
+			int v = move.getKey();
+			int from = membership[v];
+			int to = move.getValue();
+			getChange(changes,from)[1] -= degrees[v];
+			getChange(changes,to)[1] += degrees[v];
+			for (int i=offsets[v];i<offsets[v+1];i++) {
+				int w = neighbours[i];
+				Integer wTo = moved.get(w);
+				// edges between moved vertices are visited from the end point with the smaller id only
+				if (wTo!=null && w<v) continue;
+				int wFrom = membership[w];
+				if (wTo==null) wTo = wFrom;
+				if (v==w) wTo = to;
+				if (from==wFrom) getChange(changes,from)[0] -= 1;
+				if (to==wTo.intValue()) getChange(changes,to)[0] += 1;
+			}
+		}
+
+		double gain = 0;
+		for (Map.Entry<Integer,double[]> change:changes.entrySet()) {
+			int c = change.getKey();
+			double d = c<moduleCount?statistics.degrees[c]:0;
+			double[] delta = change.getValue();
+			gain = gain + delta[0]/m - ((d+delta[1])*(d+delta[1])-d*d)/(4*m*m);
+		}
+		return gain;
+	}
+
+	/**
+	 * Rank the best single vertex moves. For each vertex, all modules of its neighbours are considered as targets.
+	 * Vertices are evaluated in parallel using the default executor.
+	 * @param k the max number of moves returned
+	 * @return the moves, ordered by decreasing gain
+	 */
+	public List<Move<V,M>> rankMoves(int k) {
+		return rankMoves(k,null);
+	}
+
+	/**
+	 * Rank the best single vertex moves. For each vertex, all modules of its neighbours are considered as targets.
+	 * Ranges of vertices are evaluated in parallel, each task keeps its k best moves, these are merged at the end.
+	 * Small graphs are evaluated sequentially. The result does not depend on scheduling, ties are broken by vertex and module id.
+	 * @param k the max number of moves returned
+	 * @param executor the executor, or null to use the default executor
+	 * @return the moves, ordered by decreasing gain
+	 */
+	public List<Move<V,M>> rankMoves(final int k,ExecutorService executor) {
+		int vertexCount = membership.length;
+		List<Candidate> candidates = new ArrayList<Candidate>();
+		if (vertexCount+statistics.edgeCount<threshold) {
+			candidates = rankMoves(0,vertexCount,k);
+		}
+		else {
+			int[] ranges = ParallelTasks.split(vertexCount,taskCount);
+			List<Callable<List<Candidate>>> tasks = new ArrayList<Callable<List<Candidate>>>();
+			for (int i=0;i<ranges.length-1;i++) {
+				final int from = ranges[i];
+				final int to = ranges[i+1];
+				tasks.add(new Callable<List<Candidate>>() {
+					@Override
+					public List<Candidate> call() throws Exception {
+						return rankMoves(from,to,k);
+					}
+				});
+			}
+			for (List<Candidate> partial:ParallelTasks.invokeAll(executor,tasks)) {
+				candidates.addAll(partial);
+			}
+		}
+
+		Collections.sort(candidates,Collections.reverseOrder(WORST_FIRST));
+		List<Move<V,M>> ranked = new ArrayList<Move<V,M>>(Math.min(k,candidates.size()));
+		for (int i=0;i<candidates.size() && i<k;i++) {
+			Candidate candidate = candidates.get(i);
+			ranked.add(new Move<V,M>(graph.getVertex(candidate.vertex),statistics.modules.get(candidate.module),candidate.gain));
+		}
+		return ranked;
+	}
+
+	// the k best moves of the vertices in [from,to)
+	private List<Candidate> rankMoves(int from,int to,int k) {
+		PriorityQueue<Candidate> selected = new PriorityQueue<Candidate>(Math.max(1,k+1),WORST_FIRST);
+		// the number of links to each module, only the entries of the modules listed in touched are used
+		int[] links = new int[statistics.getModuleCount()];
+		int[] touched = new int[statistics.getModuleCount()];
+		for (int v=from;v<to && k>0;v++) {
+			int touchedCount = 0;
+			for (int i=offsets[v];i<offsets[v+1];i++) {
+				int w = neighbours[i];
+				if (w==v) continue;
+				int c = membership[w];
+				if (links[c]==0) touched[touchedCount++] = c;
+				links[c] = links[c]+1;
+			}
+			int linksFrom = links[membership[v]];
+			for (int j=0;j<touchedCount;j++) {
+				int c = touched[j];
+				if (c!=membership[v]) {
+					Candidate candidate = new Candidate(v,c,computeGain(v,c,linksFrom,links[c]));
+					if (selected.size()<k) {
+						selected.add(candidate);
+					}
+					else if (WORST_FIRST.compare(candidate,selected.peek())>0) {
+						selected.poll();
+						selected.add(candidate);
+					}
+				}
+			}
+			for (int j=0;j<touchedCount;j++) {
+				links[touched[j]] = 0;
+			}
+		}
+		return new ArrayList<Candidate>(selected);
+	}
+
+	private double computeGain(int v,int to) {
+		int from = membership[v];
+		if (from==to) return 0;
+		int linksFrom = 0;
+		int linksTo = 0;
+		for (int i=offsets[v];i<offsets[v+1];i++) {
+			int w = neighbours[i];
+			if (w==v) continue;
+			int c = membership[w];
+			if (c==from) linksFrom = linksFrom+1;
+			else if (c==to) linksTo = linksTo+1;
+		}
+		return computeGain(v,to,linksFrom,linksTo);
+	}
+
+	// delta Q = (l_b-l_a)/m - k(d_b-d_a+k)/2m^2, loops stay internal and do not contribute
+	private double computeGain(int v,int to,int linksFrom,int linksTo) {
+		double m = statistics.edgeCount;
+		if (m==0) return 0;
+		double k = degrees[v];
+		double dFrom = statistics.degrees[membership[v]];
+		double dTo = to<0?0:statistics.degrees[to];
+		return (linksTo-linksFrom)/m - k*(dTo-dFrom+k)/(2*m*m);
+	}
+
+	private double[] getChange(Map<Integer,double[]> changes,int c) {
+		double[] change = changes.get(c);
+		if (change==null) {
+			change = new double[2];
+			changes.put(c,change);
+		}
+		return change;
+	}
+
+	private int getVertexId(V v) {
+		int id = graph.getId(v);
+		if (id<0) {
+			throw new IllegalArgumentException("Vertex " + v + " is not in the graph");
+		}
+		return id;
+	}
+}
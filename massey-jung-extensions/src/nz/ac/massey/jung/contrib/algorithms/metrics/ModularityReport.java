@@ -0,0 +1,119 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The modularity metrics of a graph, all derived from the same statistics that are collected in one pass over the graph.
+ * Reports are created by Modularity.computeReport.
+ * @author jens dietrich
+ * @param <M> the module type
+ */
+public class ModularityReport<M> {
+
+	private double modularity = 0;
+	private double maxModularity = 0;
+	private double scaledModularity = 0;
+	private int edgeCount = 0;
+	private List<M> modules = null;
+	private Map<M,Integer> moduleIds = null;
+	private int[] internalEdges = null;
+	private int[] externalEdges = null;
+
+	ModularityReport(ModuleStatistics<M> statistics) {
+		super();
+		if (statistics.edgeCounts==null) {
+			throw new IllegalArgumentException("Reports require statistics collected from an unweighted edge list");
+		}
+		this.modularity = statistics.modularity();
+		this.maxModularity = statistics.maxModularity();
+		this.scaledModularity = modularity==0.0?0:modularity/maxModularity;
+		// the edge counts are integers counted during the edge pass, the statistics may count arcs instead of edges
+		this.edgeCount = statistics.edgeCounts.edgeCount;
+		this.modules = statistics.modules;
+		this.internalEdges = statistics.edgeCounts.internalEdges;
+		this.externalEdges = statistics.edgeCounts.externalEdges;
+		int moduleCount = modules.size();
+		this.moduleIds = new HashMap<M,Integer>(moduleCount*2);
+		for (int c=0;c<moduleCount;c++) {
+			moduleIds.put(modules.get(c),c);
+		}
+	}
+
+	/**
+	 * Get the modularity, see Modularity#computeModularity.
+	 * @return
+	 */
+	public double getModularity() {
+		return modularity;
+	}
+
+	/**
+	 * Get the max modularity, see Modularity#computeMaxModularity.
+	 * @return
+	 */
+	public double getMaxModularity() {
+		return maxModularity;
+	}
+
+	/**
+	 * Get the modularity scaled to [-1,1], see Modularity#computeScaledModularity.
+	 * @return
+	 */
+	public double getScaledModularity() {
+		return scaledModularity;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int getModuleCount() {
+		return modules.size();
+	}
+
+	/**
+	 * Get the modules.
+	 * @return
+	 */
+	public List<M> getModules() {
+		return Collections.unmodifiableList(modules);
+	}
+
+	/**
+	 * Get the number of edges with both end points in a module.
+	 * @param module
+	 * @return the number of edges, or 0 if the module has no vertices
+	 */
+	public int getInternalEdgeCount(M module) {
+		Integer c = moduleIds.get(module);
+		return c==null?0:internalEdges[c];
+	}
+
+	/**
+	 * Get the number of edges with exactly one end point in a module.
+	 * @param module
+	 * @return the number of edges, or 0 if the module has no vertices
+	 */
+	public int getExternalEdgeCount(M module) {
+		Integer c = moduleIds.get(module);
+		return c==null?0:externalEdges[c];
+	}
+
+	@Override
+	public String toString() {
+		return "ModularityReport [modularity=" + modularity + ", maxModularity=" + maxModularity + ", scaledModularity="
+				+ scaledModularity + ", modules=" + modules.size() + ", edges=" + edgeCount + "]";
+	}
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Tests the significance of the modularity of a graph by comparing it with the modularity of randomised graphs with the same vertex degrees
+ * (and the same module membership). Two null models are supported:
+ * CONFIGURATION pairs the edge end points (stubs) uniformly at random, this may create loops and parallel edges.
+ * EDGE_SWAP starts from the graph and repeatedly swaps the targets of two random edges, swaps that would create loops are rejected (parallel edges may be created).
+ * Randomised graphs are never built. The degree sums of the modules do not change, so the modularity of a sample only depends on the number of edges inside modules,
+ * and this number is maintained while the edges are rewired. Each sample therefore costs O(|E|) (CONFIGURATION) or O(number of swaps) (EDGE_SWAP) time.
+ * Samples are computed in parallel. Each task reuses its int arrays for all of its samples, and each sample uses its own random generator
+ * derived from the seed and the sample index, so results do not depend on the number of threads.
+ * The observed modularity is the same as Modularity#computeModularity(Graph,Transformer), every edge is counted.
+ * @author jens dietrich
+ */
+public class ModularitySignificance {
+
+	public static enum NullModel {CONFIGURATION,EDGE_SWAP}
+
+	public static final int DEFAULT_SAMPLE_COUNT = 1000;
+	public static final int DEFAULT_SWAPS_PER_EDGE = 10;
+
+	private ExecutorService executor = null;
+	private NullModel nullModel = NullModel.CONFIGURATION;
+	private int sampleCount = DEFAULT_SAMPLE_COUNT;
+	private int swapsPerEdge = DEFAULT_SWAPS_PER_EDGE;
+	private long seed = 42;
+
+	/**
+	 * Create an instance using the configuration model, the default number of samples and the default executor.
+	 */
+	public ModularitySignificance() {
+		this(null,NullModel.CONFIGURATION,DEFAULT_SAMPLE_COUNT);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param executor the executor, or null to use the default executor
+	 * @param nullModel the model used to randomise graphs
+	 * @param sampleCount the number of randomised graphs
+	 */
+	public ModularitySignificance(ExecutorService executor,NullModel nullModel,int sampleCount) {
+		super();
+		this.executor = executor;
+		this.nullModel = nullModel;
+		this.sampleCount = sampleCount;
+	}
+
+	/**
+	 * Set the number of swaps per edge used to randomise a graph with the EDGE_SWAP model.
+	 * @param swapsPerEdge
+	 */
+	public void setSwapsPerEdge(int swapsPerEdge) {
+		this.swapsPerEdge = swapsPerEdge;
+	}
+
+	/**
+	 * Set the seed the random generators of the samples are derived from.
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Compare the modularity of a graph with the modularity of randomised graphs.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E,M> SignificanceReport computeSignificance(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return computeSignificance(new CompactGraph<V,E>(g),moduleMembership);
+	}
+
+	/**
+	 * Compare the modularity of a graph snapshot with the modularity of randomised graphs.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E,M> SignificanceReport computeSignificance(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		List<M> modules = new ArrayList<M>();
+		final int[] membership = ModuleStatistics.resolve(g,moduleMembership,modules);
+		final int[] sources = g.getSources();
+		final int[] targets = g.getTargets();
+		final int edgeCount = g.getEdgeCount();
+		ModuleStatistics<M> statistics = ModuleStatistics.collect(modules,membership,sources,targets,edgeCount);
+		final double[] samples = new double[sampleCount];
+		if (edgeCount==0) {
+			return new SignificanceReport(0,samples,sampleCount);
+		}
+
+		// modularity is internal/m - expected, where expected = sum_c (d_c/2m)^2 is the same for all samples
+		long internal = 0;
+		double expected = 0;
+		for (int c=0;c<modules.size();c++) {
+			internal = internal+statistics.edgeCounts.internalEdges[c];
+			double a = statistics.degrees[c]/(2.0*edgeCount);
+			expected = expected+a*a;
+		}
+		final long observedInternal = internal;
+		final double finalExpected = expected;
+		// a single module has no community structure, see ModuleStatistics#modularity
+		double modularity = modules.size()<2?0:modularity(observedInternal,edgeCount,expected);
+
+		int[] ranges = ParallelTasks.split(sampleCount,ParallelTasks.getParallelism());
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(ranges.length-1);
+		for (int i=0;i<ranges.length-1;i++) {
+			final int from = ranges[i];
+			final int to = ranges[i+1];
+			tasks.add(new Callable<Integer>() {
+				@Override
+				public Integer call() throws Exception {
+					return nullModel==NullModel.CONFIGURATION
+						? sampleConfigurations(membership,sources,targets,edgeCount,observedInternal,finalExpected,samples,from,to)
+						: sampleSwaps(membership,sources,targets,edgeCount,observedInternal,finalExpected,samples,from,to);
+				}
+			});
+		}
+		int atLeastObserved = 0;
+		for (int count:ParallelTasks.invokeAll(executor,tasks)) {
+			atLeastObserved = atLeastObserved+count;
+		}
+		return new SignificanceReport(modularity,samples,atLeastObserved);
+	}
+
+	/**
+	 * Compute the samples from .. to-1 using the configuration model.
+	 * The stubs are labelled with the modules of their vertices, and matched by pairing each unmatched stub with a random unmatched stub.
+	 * @return the number of samples with at least as many edges inside modules as the graph
+	 */
+	private int sampleConfigurations(int[] membership,int[] sources,int[] targets,int edgeCount,long observedInternal,double expected,double[] samples,int from,int to) {
+		int[] stubs = new int[2*edgeCount];
+		for (int e=0;e<edgeCount;e++) {
+			stubs[2*e] = membership[sources[e]];
+			stubs[2*e+1] = membership[targets[e]];
+		}
+		int[] buffer = new int[stubs.length];
+		int atLeastObserved = 0;
+		for (int sample=from;sample<to;sample++) {
+			Generator random = new Generator(seed,sample);
+			System.arraycopy(stubs,0,buffer,0,stubs.length);
+			long internal = 0;
+			for (int i=0;i<buffer.length;i=i+2) {
+				int j = i+1+random.nextInt(buffer.length-i-1);
+				int partner = buffer[j];
+				buffer[j] = buffer[i+1];
+				buffer[i+1] = partner;
+				if (buffer[i]==partner) internal = internal+1;
+			}
+			samples[sample] = modularity(internal,edgeCount,expected);
+			if (internal>=observedInternal) atLeastObserved = atLeastObserved+1;
+		}
+		return atLeastObserved;
+	}
+
+	/**
+	 * Compute the samples from .. to-1 using edge swaps.
+	 * @return the number of samples with at least as many edges inside modules as the graph
+	 */
+	private int sampleSwaps(int[] membership,int[] sources,int[] targets,int edgeCount,long observedInternal,double expected,double[] samples,int from,int to) {
+		int[] buffer = new int[edgeCount];
+		long swapCount = (long)swapsPerEdge*edgeCount;
+		int atLeastObserved = 0;
+		for (int sample=from;sample<to;sample++) {
+			Generator random = new Generator(seed,sample);
+			System.arraycopy(targets,0,buffer,0,edgeCount);
+			long internal = observedInternal;
+			for (long k=0;k<swapCount;k++) {
+				int e1 = random.nextInt(edgeCount);
+				int e2 = random.nextInt(edgeCount);
+				int s1 = sources[e1];
+				int t1 = buffer[e1];
+				int s2 = sources[e2];
+				int t2 = buffer[e2];
+				if (e1==e2 || s1==t2 || s2==t1) continue;
+				int before = (membership[s1]==membership[t1]?1:0)+(membership[s2]==membership[t2]?1:0);
+				int after = (membership[s1]==membership[t2]?1:0)+(membership[s2]==membership[t1]?1:0);
+				internal = internal+after-before;
+				buffer[e1] = t2;
+				buffer[e2] = t1;
+			}
+			samples[sample] = modularity(internal,edgeCount,expected);
+			if (internal>=observedInternal) atLeastObserved = atLeastObserved+1;
+		}
+		return atLeastObserved;
+	}
+
+	private static double modularity(long internal,int edgeCount,double expected) {
+		return (double)internal/edgeCount-expected;
+	}
+
+	/**
+	 * A SplitMix64 generator. Generators for different samples are derived from the seed and the sample index,
+	 * so samples can be computed in any order and by any thread.
+	 * Steele, G. L., Lea, D., Flood, C. H. (2014), "Fast splittable pseudorandom number generators", OOPSLA '14, doi:10.1145/2660193.2660195.
+	 */
+	private static class Generator {
+		private static final long GAMMA = 0x9E3779B97F4A7C15L;
+		private long state = 0;
+
+		Generator(long seed,int sample) {
+			super();
+			this.state = mix(seed+GAMMA*(sample+1L));
+		}
+
+		private static long mix(long z) {
+			z = (z^(z>>>30))*0xBF58476D1CE4E5B9L;
+			z = (z^(z>>>27))*0x94D049BB133111EBL;
+			return z^(z>>>31);
+		}
+
+		long nextLong() {
+			state = state+GAMMA;
+			return mix(state);
+		}
+
+		// a random int in [0,bound), computed from the high 32 bits
+		int nextInt(int bound) {
+			return (int)(((nextLong()>>>32)*bound)>>>32);
+		}
+	}
+}
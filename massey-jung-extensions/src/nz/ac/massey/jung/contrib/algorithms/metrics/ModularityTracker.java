@@ -0,0 +1,227 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Keeps track of the modularity of a graph while edges are added or removed and vertices move between modules.
+ * The tracker maintains the number of internal edges and the degree sum of each module, and the sums over all modules
+ * needed to evaluate Q = sum_c [e_c/m - (d_c/2m)^2]. Adding an edge is O(1), removing an edge is O(degree) (the neighbour lists
+ * of both end points are searched), moving a vertex is O(degree), and reading the modularity is O(1).
+ * Every edge is counted and edge directions are ignored, as in Modularity.Mode.UNDIRECTED.
+ * The tracker maintains its own adjacency, it is not notified about changes of the graph it was seeded from.
+ * All counts are integers, so there is no drift no matter how many updates are applied.
+ * @author jens dietrich
+ * @param <V> the vertex type
+ * @param <M> the module type
+ */
+public class ModularityTracker<V,M> {
+
+	private Transformer<V,M> moduleMembership = null;
+	private List<M> modules = new ArrayList<M>();
+	private Map<M,Integer> moduleIds = new HashMap<M,Integer>();
+	private Map<V,Integer> membership = new HashMap<V,Integer>();
+	// neighbours, self loops are recorded twice so that the list size is the degree
+	private Map<V,List<V>> adjacency = new HashMap<V,List<V>>();
+	private long[] internalEdges = new long[16];
+	private long[] degrees = new long[16];
+	private long edgeCount = 0;
+	private long internalEdgeSum = 0;
+	private long squaredDegreeSum = 0;
+
+	/**
+	 * Create a tracker for a graph. Module membership of the vertices of the graph and of vertices added later is defined by a function.
+	 * @param g
+	 * @param moduleMembership
+	 */
+	public <E> ModularityTracker(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		super();
+		this.moduleMembership = moduleMembership;
+		for (V v:g.getVertices()) {
+			addVertex(v);
+		}
+		for (E e:g.getEdges()) {
+			Pair<V> endpoints = g.getEndpoints(e);
+			addEdge(endpoints.getFirst(),endpoints.getSecond());
+		}
+	}
+
+	/**
+	 * Add a vertex, its module is defined by the module membership function.
+	 * Nothing happens if the vertex is already tracked.
+	 * @param v
+	 */
+	public void addVertex(V v) {
+		if (!membership.containsKey(v)) {
+			membership.put(v,getModuleId(moduleMembership.transform(v)));
+			adjacency.put(v,new ArrayList<V>());
+		}
+	}
+
+	/**
+	 * Add an edge. Vertices that are not tracked yet are added.
+	 * @param v1
+	 * @param v2
+	 */
+	public void addEdge(V v1,V v2) {
+		addVertex(v1);
+		addVertex(v2);
+		adjacency.get(v1).add(v2);
+		adjacency.get(v2).add(v1);
+		int c1 = membership.get(v1);
+		int c2 = membership.get(v2);
+		edgeCount = edgeCount+1;
+		addDegree(c1,1);
+		addDegree(c2,1);
+		if (c1==c2) {
+			addInternalEdges(c1,1);
+		}
+	}
+
+	/**
+	 * Remove an edge between two vertices. If there are parallel edges, only one of them is removed.
+	 * @param v1
+	 * @param v2
+	 * @return whether an edge was removed
+	 */
+	public boolean removeEdge(V v1,V v2) {
+		List<V> neighbours1 = adjacency.get(v1);
+		List<V> neighbours2 = adjacency.get(v2);
+		if (neighbours1==null || neighbours2==null || !neighbours1.remove(v2)) {
+			return false;
+		}
+		neighbours2.remove(v1);
+		int c1 = membership.get(v1);
+		int c2 = membership.get(v2);
+		edgeCount = edgeCount-1;
+		addDegree(c1,-1);
+		addDegree(c2,-1);
+		if (c1==c2) {
+			addInternalEdges(c1,-1);
+		}
+		return true;
+	}
+
+	/**
+	 * Move a vertex to another module. Complexity is O(degree).
+	 * @param v
+	 * @param module
+	 */
+	public void moveVertex(V v,M module) {
+		addVertex(v);
+		int from = membership.get(v);
+		int to = getModuleId(module);
+		if (from==to) return;
+
+		List<V> neighbours = adjacency.get(v);
+		long linksFrom = 0;
+		long linksTo = 0;
+		long loops = 0;
+		for (V u:neighbours) {
+			if (u.equals(v)) {
+				loops = loops+1;
+			}
+			else {
+				int c = membership.get(u);
+				if (c==from) linksFrom = linksFrom+1;
+				else if (c==to) linksTo = linksTo+1;
+			}
+		}
+		// self loops are recorded twice
+		loops = loops/2;
+
+		addInternalEdges(from,-linksFrom-loops);
+		addInternalEdges(to,linksTo+loops);
+		addDegree(from,-neighbours.size());
+		addDegree(to,neighbours.size());
+		membership.put(v,to);
+	}
+
+	/**
+	 * Get the module a vertex currently belongs to.
+	 * @param v
+	 * @return the module, or null if the vertex is not tracked
+	 */
+	public M getModule(V v) {
+		Integer id = membership.get(v);
+		return id==null?null:modules.get(id);
+	}
+
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Get the current modularity.
+	 * @return
+	 */
+	public double getModularity() {
+		if (edgeCount==0) return 0;
+		double m = edgeCount;
+		return internalEdgeSum/m - squaredDegreeSum/(4*m*m);
+	}
+
+	/**
+	 * Get the current max modularity, see Modularity#computeMaxModularity.
+	 * @return
+	 */
+	public double getMaxModularity() {
+		if (edgeCount==0) return 0;
+		double m = edgeCount;
+		return 1 - squaredDegreeSum/(4*m*m);
+	}
+
+	/**
+	 * Get the current modularity scaled to [-1,1].
+	 * @return
+	 */
+	public double getScaledModularity() {
+		double modularity = getModularity();
+		if (modularity==0.0) return 0;
+		return modularity/getMaxModularity();
+	}
+
+	private int getModuleId(M module) {
+		Integer id = moduleIds.get(module);
+		if (id==null) {
+			id = modules.size();
+			moduleIds.put(module,id);
+			modules.add(module);
+			if (id==degrees.length) {
+				long[] newDegrees = new long[id*2];
+				long[] newInternalEdges = new long[id*2];
+				System.arraycopy(degrees,0,newDegrees,0,id);
+				System.arraycopy(internalEdges,0,newInternalEdges,0,id);
+				degrees = newDegrees;
+				internalEdges = newInternalEdges;
+			}
+		}
+		return id;
+	}
+
+	private void addDegree(int c,long delta) {
+		long d = degrees[c];
+		// (d+delta)^2 - d^2
+		squaredDegreeSum = squaredDegreeSum + delta*(2*d+delta);
+		degrees[c] = d+delta;
+	}
+
+	private void addInternalEdges(int c,long delta) {
+		internalEdges[c] = internalEdges[c]+delta;
+		internalEdgeSum = internalEdgeSum+delta;
+	}
+}
@@ -0,0 +1,631 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.apache.commons.collections15.Transformer;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.io.GraphFile;
+import nz.ac.massey.jung.contrib.io.MappedIntArray;
+import nz.ac.massey.jung.contrib.io.MappedLongArray;
+import nz.ac.massey.jung.contrib.util.AlgorithmListener;
+import nz.ac.massey.jung.contrib.util.Instrumentation;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Per-module aggregates used to compute modularity in O(|V|+|E|).
+ * For each module c, this records the number of edges inside the module (e_c) and the sum of the degrees of
+ * the vertices in the module (d_c). Modularity is then Q = sum_c [e_c/m - (d_c/2m)^2].
+ * Each edge contributes to the degree sums of both of its end points, so the degree sums always add up to 2m
+ * (except for the pairwise statistics, see collectPairwise).
+ * For weighted graphs, edges are counted with their weights: e_c is the weight inside c, d_c the sum of the vertex strengths and m the total weight.
+ * Directed statistics also record the out degree sum o_c and the in degree sum i_c of each module, modularity is then computed using
+ * the directed definition by Leicht and Newman, Q = sum_c [e_c/m - o_c*i_c/m^2].
+ * @author jens dietrich
+ * @param <M> the module type
+ */
+class ModuleStatistics<M> {
+
+	// prefix of the metrics reported to the instrumentation listener
+	static final String PREFIX = "modularity.";
+
+	final List<M> modules;
+	final double[] internalEdges;
+	final double[] degrees;
+	// the number of edges, or the total edge weight for weighted graphs
+	final double edgeCount;
+	// out and in degree sums, null unless directed modularity is computed
+	final double[] outDegrees;
+	final double[] inDegrees;
+	// the number of edges inside each module and with exactly one end point in each module,
+	// null unless the statistics are collected from an unweighted edge list
+	final EdgeCounts edgeCounts;
+
+	ModuleStatistics(List<M> modules,double[] internalEdges,double[] degrees,double edgeCount) {
+		this(modules,internalEdges,degrees,null,null,edgeCount,null);
+	}
+
+	ModuleStatistics(List<M> modules,double[] internalEdges,double[] degrees,double edgeCount,EdgeCounts edgeCounts) {
+		this(modules,internalEdges,degrees,null,null,edgeCount,edgeCounts);
+	}
+
+	ModuleStatistics(List<M> modules,double[] internalEdges,double[] degrees,double[] outDegrees,double[] inDegrees,double edgeCount,EdgeCounts edgeCounts) {
+		super();
+		this.modules = modules;
+		this.internalEdges = internalEdges;
+		this.degrees = degrees;
+		this.outDegrees = outDegrees;
+		this.inDegrees = inDegrees;
+		this.edgeCount = edgeCount;
+		this.edgeCounts = edgeCounts;
+	}
+
+	/**
+	 * Integer edge counts per module, collected in the same pass as the statistics.
+	 * Each edge is counted once, regardless of its direction or whether directed modularity is computed.
+	 */
+	static class EdgeCounts {
+		final int[] internalEdges;
+		final int[] externalEdges;
+		int edgeCount = 0;
+
+		EdgeCounts(int moduleCount) {
+			super();
+			this.internalEdges = new int[moduleCount];
+			this.externalEdges = new int[moduleCount];
+		}
+
+		void add(int c1,int c2) {
+			if (c1==c2) {
+				internalEdges[c1] = internalEdges[c1]+1;
+			}
+			else {
+				externalEdges[c1] = externalEdges[c1]+1;
+				externalEdges[c2] = externalEdges[c2]+1;
+			}
+			edgeCount = edgeCount+1;
+		}
+	}
+
+	/**
+	 * Collect the statistics with one pass over the vertices (to resolve module membership) and one pass over the edges.
+	 * Each edge is counted, so parallel and reciprocal edges count as separate edges, and a loop adds 2 to the degree sum of its module.
+	 * The degree sums always add up to 2m, this is the definition used by all methods in Modularity except computePairwiseModularity.
+	 * If the membership is a CachedMembership for this graph, the resolved membership is reused.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,E,M> ModuleStatistics<M> collect(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		CachedMembership.Table<V,M> table = getTable(g,moduleMembership);
+		long start = System.nanoTime();
+		List<M> modules = table.modules;
+		Map<V,Integer> membership = table.moduleIds;
+
+		double[] internalEdges = new double[modules.size()];
+		double[] degrees = new double[modules.size()];
+		EdgeCounts counts = new EdgeCounts(modules.size());
+		for (E e:g.getEdges()) {
+			Pair<V> endpoints = g.getEndpoints(e);
+			Integer c1 = membership.get(endpoints.getFirst());
+			Integer c2 = membership.get(endpoints.getSecond());
+			if (c1==null || c2==null) {
+				throw new IllegalStateException("The module of a vertex of edge " + e + " is unknown, the cached membership must be invalidated after the graph has changed");
+			}
+			degrees[c1] = degrees[c1]+1;
+			degrees[c2] = degrees[c2]+1;
+			if (c1.equals(c2)) {
+				internalEdges[c1] = internalEdges[c1]+1;
+			}
+			counts.add(c1,c2);
+		}
+		edgesCollected(start,g.getEdgeCount());
+		return new ModuleStatistics<M>(modules,internalEdges,degrees,g.getEdgeCount(),counts);
+	}
+
+	/**
+	 * Collect the statistics for the pairwise definition Q = 1/2m sum_ij [A_ij - k_i*k_j/2m] delta(c_i,c_j), where A_ij is 1 if i and j are neighbours
+	 * (in any direction) and 0 otherwise, and k_i is the degree of i as reported by the graph.
+	 * This is computed with one pass over the vertices and their neighbours.
+	 * e_c is then half the number of ordered pairs of neighbours in c: reciprocal and parallel edges are counted once, and a loop counts as half an edge.
+	 * For graphs without loops, parallel and reciprocal edges, this is the same as collect.
+	 * If the membership is a CachedMembership for this graph, the resolved membership is reused.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,E,M> ModuleStatistics<M> collectPairwise(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		CachedMembership.Table<V,M> table = getTable(g,moduleMembership);
+		long start = System.nanoTime();
+		List<M> modules = table.modules;
+		Map<V,Integer> membership = table.moduleIds;
+
+		double[] internalEdges = new double[modules.size()];
+		double[] degrees = new double[modules.size()];
+		long neighbourCount = 0;
+		for (V v:g.getVertices()) {
+			Integer c = moduleId(membership,v);
+			degrees[c] = degrees[c]+g.degree(v);
+			for (V w:g.getNeighbors(v)) {
+				neighbourCount = neighbourCount+1;
+				if (c.equals(moduleId(membership,w))) {
+					internalEdges[c] = internalEdges[c]+0.5;
+				}
+			}
+		}
+		edgesCollected(start,neighbourCount);
+		return new ModuleStatistics<M>(modules,internalEdges,degrees,g.getEdgeCount());
+	}
+
+	private static <V> Integer moduleId(Map<V,Integer> membership,V v) {
+		Integer c = membership.get(v);
+		if (c==null) {
+			throw new IllegalStateException("The module of vertex " + v + " is unknown, the cached membership must be invalidated after the graph has changed");
+		}
+		return c;
+	}
+
+	/**
+	 * Collect directed statistics. Directed edges are counted from their source to their destination, undirected edges
+	 * are counted as two arcs in opposite directions, so m is the number of arcs. For undirected graphs, this gives the same modularity as collect.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,E,M> ModuleStatistics<M> collectDirected(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		CachedMembership.Table<V,M> table = getTable(g,moduleMembership);
+		long start = System.nanoTime();
+		List<M> modules = table.modules;
+		Map<V,Integer> membership = table.moduleIds;
+
+		double[] internalEdges = new double[modules.size()];
+		double[] outDegrees = new double[modules.size()];
+		double[] inDegrees = new double[modules.size()];
+		double arcCount = 0;
+		EdgeCounts counts = new EdgeCounts(modules.size());
+		for (E e:g.getEdges()) {
+			Pair<V> endpoints = g.getEndpoints(e);
+			Integer c1 = membership.get(endpoints.getFirst());
+			Integer c2 = membership.get(endpoints.getSecond());
+			if (c1==null || c2==null) {
+				throw new IllegalStateException("The module of a vertex of edge " + e + " is unknown, the cached membership must be invalidated after the graph has changed");
+			}
+			// jung returns the source of directed edges first
+			int arcs = 1;
+			outDegrees[c1] = outDegrees[c1]+1;
+			inDegrees[c2] = inDegrees[c2]+1;
+			if (g.getEdgeType(e)==EdgeType.UNDIRECTED) {
+				arcs = 2;
+				outDegrees[c2] = outDegrees[c2]+1;
+				inDegrees[c1] = inDegrees[c1]+1;
+			}
+			if (c1.equals(c2)) {
+				internalEdges[c1] = internalEdges[c1]+arcs;
+			}
+			counts.add(c1,c2);
+			arcCount = arcCount+arcs;
+		}
+		edgesCollected(start,g.getEdgeCount());
+		return directed(modules,internalEdges,outDegrees,inDegrees,arcCount,counts);
+	}
+
+	/**
+	 * Get the module ids of the vertices of a graph, either from the cache or by resolving them.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,M> CachedMembership.Table<V,M> getTable(Graph<V,?> g,Transformer<V,M> moduleMembership) {
+		CachedMembership.Table<V,M> table = null;
+		if (moduleMembership instanceof CachedMembership) {
+			table = ((CachedMembership<V,M>)moduleMembership).getTable(g);
+		}
+		return table==null?CachedMembership.resolve(g,moduleMembership):table;
+	}
+
+	/**
+	 * Collect the statistics from a graph snapshot. Module membership is resolved once per vertex into an int array,
+	 * the pass over the edges then only uses int arrays.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	static <V,E,M> ModuleStatistics<M> collect(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		List<M> modules = new ArrayList<M>();
+		int[] membership = resolve(g,moduleMembership,modules);
+		return collect(modules,membership,g.getSources(),g.getTargets(),g.getEdgeCount());
+	}
+
+	/**
+	 * Collect weighted statistics from a graph snapshot. Edge weights are unboxed once into an array indexed by edge id,
+	 * e_c is then the total weight of the edges inside module c, d_c the sum of the strengths (weighted degrees) of
+	 * the vertices in c, and m the total weight of all edges.
+	 * @param g
+	 * @param moduleMembership
+	 * @param edgeWeights
+	 * @return
+	 */
+	static <V,E,M> ModuleStatistics<M> collect(CompactGraph<V,E> g,Transformer<V,M> moduleMembership,Transformer<E,? extends Number> edgeWeights) {
+		List<M> modules = new ArrayList<M>();
+		int[] membership = resolve(g,moduleMembership,modules);
+		return collect(modules,membership,g.getSources(),g.getTargets(),getWeights(g,edgeWeights),g.getEdgeCount());
+	}
+
+	/**
+	 * Collect directed statistics from a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 * @see #collectDirected(Graph, Transformer)
+	 */
+	static <V,E,M> ModuleStatistics<M> collectDirected(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		List<M> modules = new ArrayList<M>();
+		int[] membership = resolve(g,moduleMembership,modules);
+		int[] sources = g.getSources();
+		int[] targets = g.getTargets();
+		long start = System.nanoTime();
+		double[] internalEdges = new double[modules.size()];
+		double[] outDegrees = new double[modules.size()];
+		double[] inDegrees = new double[modules.size()];
+		double arcCount = 0;
+		EdgeCounts counts = new EdgeCounts(modules.size());
+		for (int e=0;e<g.getEdgeCount();e++) {
+			int c1 = membership[sources[e]];
+			int c2 = membership[targets[e]];
+			int arcs = 1;
+			outDegrees[c1] = outDegrees[c1]+1;
+			inDegrees[c2] = inDegrees[c2]+1;
+			if (!g.isDirected(e)) {
+				arcs = 2;
+				outDegrees[c2] = outDegrees[c2]+1;
+				inDegrees[c1] = inDegrees[c1]+1;
+			}
+			if (c1==c2) {
+				internalEdges[c1] = internalEdges[c1]+arcs;
+			}
+			counts.add(c1,c2);
+			arcCount = arcCount+arcs;
+		}
+		edgesCollected(start,g.getEdgeCount());
+		return directed(modules,internalEdges,outDegrees,inDegrees,arcCount,counts);
+	}
+
+	// directed statistics, the degree sums are the sums of out and in degrees
+	private static <M> ModuleStatistics<M> directed(List<M> modules,double[] internalEdges,double[] outDegrees,double[] inDegrees,double arcCount,EdgeCounts counts) {
+		double[] degrees = new double[modules.size()];
+		for (int c=0;c<degrees.length;c++) {
+			degrees[c] = outDegrees[c]+inDegrees[c];
+		}
+		return new ModuleStatistics<M>(modules,internalEdges,degrees,outDegrees,inDegrees,arcCount,counts);
+	}
+
+	/**
+	 * Resolve the module of each vertex of a graph snapshot into a dense module id.
+	 * @param g
+	 * @param moduleMembership
+	 * @param modules the list the modules are added to, indexed by module id
+	 * @return the module id of each vertex
+	 */
+	static <V,M> int[] resolve(CompactGraph<V,?> g,Transformer<V,M> moduleMembership,List<M> modules) {
+		long start = System.nanoTime();
+		Map<M,Integer> moduleIds = new HashMap<M,Integer>();
+		int[] membership = new int[g.getVertexCount()];
+		for (int v=0;v<membership.length;v++) {
+			M c = moduleMembership.transform(g.getVertex(v));
+			Integer id = moduleIds.get(c);
+			if (id==null) {
+				id = modules.size();
+				moduleIds.put(c,id);
+				modules.add(c);
+			}
+			membership[v] = id;
+		}
+		membershipResolved(start,membership.length,AlgorithmListener.TRANSFORMER_INVOCATIONS);
+		return membership;
+	}
+
+	/**
+	 * Get the weights of the edges of a graph snapshot.
+	 * @param g
+	 * @param edgeWeights
+	 * @return the weights, indexed by edge id
+	 * @throws IllegalArgumentException if a weight is negative or NaN
+	 */
+	static <E> double[] getWeights(CompactGraph<?,E> g,Transformer<E,? extends Number> edgeWeights) {
+		double[] weights = new double[g.getEdgeCount()];
+		for (int e=0;e<weights.length;e++) {
+			E edge = g.getEdge(e);
+			weights[e] = edgeWeights.transform(edge).doubleValue();
+			// !(w>=0) also rejects NaN
+			if (!(weights[e]>=0)) {
+				throw new IllegalArgumentException("The weight of edge " + edge + " is " + weights[e] + ", weights must not be negative");
+			}
+		}
+		return weights;
+	}
+
+	/**
+	 * Collect the statistics from resolved module ids and an edge list.
+	 * @param modules the modules, indexed by module id
+	 * @param membership the module id of each vertex
+	 * @param sources the source of each edge
+	 * @param targets the target of each edge
+	 * @param edgeCount the number of edges
+	 * @return
+	 */
+	static <M> ModuleStatistics<M> collect(List<M> modules,int[] membership,int[] sources,int[] targets,int edgeCount) {
+		long start = System.nanoTime();
+		double[] internalEdges = new double[modules.size()];
+		double[] degrees = new double[modules.size()];
+		EdgeCounts counts = new EdgeCounts(modules.size());
+		for (int e=0;e<edgeCount;e++) {
+			int c1 = membership[sources[e]];
+			int c2 = membership[targets[e]];
+			degrees[c1] = degrees[c1]+1;
+			degrees[c2] = degrees[c2]+1;
+			if (c1==c2) {
+				internalEdges[c1] = internalEdges[c1]+1;
+			}
+			counts.add(c1,c2);
+		}
+		edgesCollected(start,edgeCount);
+		return new ModuleStatistics<M>(modules,internalEdges,degrees,edgeCount,counts);
+	}
+
+	/**
+	 * Collect the statistics from a memory mapped graph file, using the module column of the file.
+	 * Adjacency and module ids are read directly from the mapped buffers, modules are identified by their labels.
+	 * Undirected edges are stored in the adjacency of both end points, they are only counted from the end point with the smaller id.
+	 * @param g
+	 * @return
+	 */
+	static ModuleStatistics<String> collect(GraphFile<?> g) {
+		MappedIntArray membership = g.getModuleIds();
+		if (membership==null) {
+			throw new IllegalArgumentException("The graph file has no module column");
+		}
+		MappedLongArray offsets = g.getOffsets();
+		MappedIntArray targets = g.getTargets();
+		boolean undirected = g.isUndirected();
+		long start = System.nanoTime();
+		double[] internalEdges = new double[g.getModuleCount()];
+		double[] degrees = new double[g.getModuleCount()];
+		EdgeCounts counts = new EdgeCounts(g.getModuleCount());
+		long i = 0;
+		for (int v=0;v<g.getVertexCount();v++) {
+			int c1 = membership.get(v);
+			long end = offsets.get(v+1);
+			for (;i<end;i++) {
+				int w = targets.get(i);
+				if (undirected && w<v) continue;
+				int c2 = membership.get(w);
+				degrees[c1] = degrees[c1]+1;
+				degrees[c2] = degrees[c2]+1;
+				if (c1==c2) {
+					internalEdges[c1] = internalEdges[c1]+1;
+				}
+				counts.add(c1,c2);
+			}
+		}
+		edgesCollected(start,i);
+		return new ModuleStatistics<String>(g.getModuleLabels(),internalEdges,degrees,g.getEdgeCount(),counts);
+	}
+
+	/**
+	 * Collect weighted statistics from resolved module ids and an edge list. The strength of each vertex is computed first,
+	 * the degree sums of the modules are then the sums of the strengths of their vertices.
+	 * @param modules the modules, indexed by module id
+	 * @param membership the module id of each vertex
+	 * @param sources the source of each edge
+	 * @param targets the target of each edge
+	 * @param weights the weight of each edge
+	 * @param edgeCount the number of edges
+	 * @return
+	 */
+	static <M> ModuleStatistics<M> collect(List<M> modules,int[] membership,int[] sources,int[] targets,double[] weights,int edgeCount) {
+		long start = System.nanoTime();
+		double[] strengths = new double[membership.length];
+		double[] internalEdges = new double[modules.size()];
+		double totalWeight = 0;
+		for (int e=0;e<edgeCount;e++) {
+			double w = weights[e];
+			strengths[sources[e]] = strengths[sources[e]]+w;
+			strengths[targets[e]] = strengths[targets[e]]+w;
+			totalWeight = totalWeight+w;
+			int c = membership[sources[e]];
+			if (c==membership[targets[e]]) {
+				internalEdges[c] = internalEdges[c]+w;
+			}
+		}
+		double[] degrees = new double[modules.size()];
+		for (int v=0;v<membership.length;v++) {
+			degrees[membership[v]] = degrees[membership[v]]+strengths[v];
+		}
+		edgesCollected(start,edgeCount);
+		return new ModuleStatistics<M>(modules,internalEdges,degrees,totalWeight);
+	}
+
+	/**
+	 * Report the resolution of module membership to the instrumentation listener.
+	 * @param start the start time (System.nanoTime)
+	 * @param vertexCount the number of vertices, the membership function has been invoked once per vertex
+	 * @param invocations the counter for the invocations of the membership function (transformer or predicate)
+	 */
+	static void membershipResolved(long start,int vertexCount,String invocations) {
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.MEMBERSHIP_RESOLUTION,System.nanoTime()-start);
+			listener.count(PREFIX+AlgorithmListener.VERTICES_VISITED,vertexCount);
+			listener.count(PREFIX+invocations,vertexCount);
+		}
+	}
+
+	/**
+	 * Report a pass over the edges to the instrumentation listener.
+	 * @param start the start time (System.nanoTime)
+	 * @param edgeCount the number of edges visited
+	 */
+	static void edgesCollected(long start,long edgeCount) {
+		AlgorithmListener listener = Instrumentation.getListener();
+		if (listener!=AlgorithmListener.NONE) {
+			listener.time(PREFIX+AlgorithmListener.EDGE_PASS,System.nanoTime()-start);
+			listener.count(PREFIX+AlgorithmListener.EDGES_VISITED,edgeCount);
+		}
+	}
+
+	int getModuleCount() {
+		return modules.size();
+	}
+
+	/**
+	 * Modularity Q = sum_c [e_c/m - (d_c/2m)^2].
+	 * @return
+	 */
+	double modularity() {
+		// a single module (or no edges at all) has no community structure
+		if (modules.size()<2 || edgeCount==0) return 0;
+		double sum = 0;
+		for (int c=0;c<modules.size();c++) {
+			sum = sum + internalEdges[c]/edgeCount - expectedFraction(c);
+		}
+		return sum;
+	}
+
+	/**
+	 * Modularity with a resolution parameter, Q_gamma = sum_c [e_c/m - gamma*(d_c/2m)^2], for several values of gamma.
+	 * Both sums are computed once, so each value of gamma costs O(1).
+	 * With gamma=1, this is modularity(). Like modularity(), all values are 0 for a single module or no edges.
+	 * @param resolutions the values of gamma
+	 * @return the modularity for each value of gamma
+	 */
+	double[] modularities(double[] resolutions) {
+		double[] values = new double[resolutions.length];
+		if (modules.size()<2 || edgeCount==0) return values;
+		double internal = 0;
+		double expected = 0;
+		for (int c=0;c<modules.size();c++) {
+			internal = internal + internalEdges[c]/edgeCount;
+			expected = expected + expectedFraction(c);
+		}
+		for (int i=0;i<resolutions.length;i++) {
+			values[i] = internal - resolutions[i]*expected;
+		}
+		return values;
+	}
+
+	/**
+	 * The contribution of a single module to modularity, e_c/m - (d_c/2m)^2.
+	 * @param c the module id
+	 * @return
+	 */
+	double moduleModularity(int c) {
+		if (edgeCount==0) return 0;
+		return internalEdges[c]/edgeCount - expectedFraction(c);
+	}
+
+	/**
+	 * The fraction of edges expected inside a module in a random graph with the same degrees,
+	 * (d_c/2m)^2, or o_c*i_c/m^2 for directed statistics.
+	 * @param c the module id
+	 * @return
+	 */
+	private double expectedFraction(int c) {
+		if (outDegrees!=null) {
+			return outDegrees[c]*inDegrees[c]/(edgeCount*edgeCount);
+		}
+		double a = degrees[c]/(2*edgeCount);
+		return a*a;
+	}
+
+	/**
+	 * The contributions of all modules to modularity.
+	 * @return a map associating modules with their modularity
+	 */
+	Map<M,Double> moduleModularities() {
+		Map<M,Double> modularities = new HashMap<M,Double>(modules.size()*2);
+		for (int c=0;c<modules.size();c++) {
+			modularities.put(modules.get(c),moduleModularity(c));
+		}
+		return modularities;
+	}
+
+	/**
+	 * The k modules with the highest (or lowest) contributions to modularity.
+	 * A bounded heap of module ids is used, so only k entries are created.
+	 * @param k the number of modules
+	 * @param highest whether to select the modules with the highest or the lowest modularity
+	 * @return a map associating modules with their modularity, iteration order is the rank
+	 */
+	Map<M,Double> rankModuleModularities(int k,final boolean highest) {
+		final double[] scores = new double[modules.size()];
+		for (int c=0;c<scores.length;c++) {
+			scores[c] = moduleModularity(c);
+		}
+		// the head of the queue is the worst module selected so far, ties are broken by module id
+		Comparator<Integer> worstFirst = new Comparator<Integer>() {
+			@Override
+			public int compare(Integer c1,Integer c2) {
+				int result = Double.compare(scores[c1],scores[c2]);
+				if (!highest) result = -result;
+				return result!=0?result:c2.compareTo(c1);
+			}
+		};
+		PriorityQueue<Integer> selected = new PriorityQueue<Integer>(Math.max(1,k+1),worstFirst);
+		for (int c=0;c<scores.length && k>0;c++) {
+			if (selected.size()<k) {
+				selected.add(c);
+			}
+			else if (worstFirst.compare(c,selected.peek())>0) {
+				selected.poll();
+				selected.add(c);
+			}
+		}
+		int[] ranked = new int[selected.size()];
+		for (int i=ranked.length-1;i>=0;i--) {
+			ranked[i] = selected.poll();
+		}
+		Map<M,Double> modularities = new LinkedHashMap<M,Double>();
+		for (int c:ranked) {
+			modularities.put(modules.get(c),scores[c]);
+		}
+		return modularities;
+	}
+
+	/**
+	 * Max modularity 1 - sum_c (d_c/2m)^2 (1 - sum_c o_c*i_c/m^2 for directed statistics), this is what modularity would be if all edges were inside modules.
+	 * @return
+	 */
+	double maxModularity() {
+		if (edgeCount==0) return 0;
+		double sum = 1;
+		for (int c=0;c<modules.size();c++) {
+			sum = sum - expectedFraction(c);
+		}
+		return sum;
+	}
+
+	/**
+	 * Modularity scaled to [-1,1].
+	 * @return
+	 */
+	double scaledModularity() {
+		double modularity = modularity();
+		if (modularity==0.0) return 0;
+		return modularity/maxModularity();
+	}
+}
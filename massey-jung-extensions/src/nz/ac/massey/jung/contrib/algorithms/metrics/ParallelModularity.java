@@ -0,0 +1,216 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.util.ParallelTasks;
+import org.apache.commons.collections15.Predicate;
+import org.apache.commons.collections15.Transformer;
+
+/**
+ * Parallel evaluation of modularity metrics on graph snapshots.
+ * Module membership is resolved in parallel over ranges of vertices, and the edge pass is split into ranges of edges.
+ * Each task accumulates its own per-module counts, these are merged in task order at the end. Counts are integral,
+ * so results do not depend on the number of tasks or on scheduling.
+ * Graphs smaller than the threshold (measured as |V|+|E|) are evaluated sequentially, as the task overhead would dominate.
+ * Membership functions and predicates must be thread-safe.
+ * @author jens dietrich
+ */
+public class ParallelModularity {
+
+	public static final int DEFAULT_THRESHOLD = 100000;
+
+	private ExecutorService executor = null;
+	private int threshold = DEFAULT_THRESHOLD;
+	private int taskCount = 4*ParallelTasks.getParallelism();
+
+	/**
+	 * Create an instance using the default executor and threshold.
+	 */
+	public ParallelModularity() {
+		this(null,DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param executor the executor, or null to use the default executor
+	 */
+	public ParallelModularity(ExecutorService executor) {
+		this(executor,DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param executor the executor, or null to use the default executor
+	 * @param threshold the min size (|V|+|E|) of graphs evaluated in parallel
+	 */
+	public ParallelModularity(ExecutorService executor,int threshold) {
+		super();
+		this.executor = executor;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Compute the modularity of a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E,M> double computeModularity(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return collect(g,moduleMembership).modularity();
+	}
+
+	/**
+	 * Compute the max modularity of a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E,M> double computeMaxModularity(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return collect(g,moduleMembership).maxModularity();
+	}
+
+	/**
+	 * Compute the modularity of a graph snapshot scaled to [-1,1].
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E,M> double computeScaledModularity(CompactGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		return collect(g,moduleMembership).scaledModularity();
+	}
+
+	/**
+	 * Compute the modularity of a single module of a graph snapshot.
+	 * @param g
+	 * @param moduleMembership
+	 * @return
+	 */
+	public <V,E> double computeModuleModularity(final CompactGraph<V,E> g,final Predicate<V> moduleMembership) {
+		if (!isParallel(g)) {
+			return Modularity.computeModuleModularity(g,moduleMembership);
+		}
+		final int[] membership = new int[g.getVertexCount()];
+		int[] ranges = ParallelTasks.split(membership.length,taskCount);
+		List<Callable<Object>> resolveTasks = new ArrayList<Callable<Object>>();
+		for (int i=0;i<ranges.length-1;i++) {
+			final int from = ranges[i];
+			final int to = ranges[i+1];
+			resolveTasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					for (int v=from;v<to;v++) {
+						// module 0 is the module, module 1 is everything else
+						membership[v] = moduleMembership.evaluate(g.getVertex(v))?0:1;
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor,resolveTasks);
+		double[][] counts = collectEdges(g,membership,2);
+		return new ModuleStatistics<Boolean>(Arrays.asList(true,false),counts[0],counts[1],g.getEdgeCount()).moduleModularity(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	<V,E,M> ModuleStatistics<M> collect(final CompactGraph<V,E> g,final Transformer<V,M> moduleMembership) {
+		if (!isParallel(g)) {
+			return ModuleStatistics.collect(g,moduleMembership);
+		}
+
+		// resolve membership in parallel
+		final Object[] resolved = new Object[g.getVertexCount()];
+		int[] ranges = ParallelTasks.split(resolved.length,taskCount);
+		List<Callable<Object>> resolveTasks = new ArrayList<Callable<Object>>();
+		for (int i=0;i<ranges.length-1;i++) {
+			final int from = ranges[i];
+			final int to = ranges[i+1];
+			resolveTasks.add(new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					for (int v=from;v<to;v++) {
+						resolved[v] = moduleMembership.transform(g.getVertex(v));
+					}
+					return null;
+				}
+			});
+		}
+		ParallelTasks.invokeAll(executor,resolveTasks);
+
+		// assign dense module ids
+		List<M> modules = new ArrayList<M>();
+		Map<Object,Integer> moduleIds = new HashMap<Object,Integer>();
+		int[] membership = new int[resolved.length];
+		for (int v=0;v<resolved.length;v++) {
+			Integer id = moduleIds.get(resolved[v]);
+			if (id==null) {
+				id = modules.size();
+				moduleIds.put(resolved[v],id);
+				modules.add((M)resolved[v]);
+			}
+			membership[v] = id;
+		}
+
+		double[][] counts = collectEdges(g,membership,modules.size());
+		return new ModuleStatistics<M>(modules,counts[0],counts[1],g.getEdgeCount());
+	}
+
+	// parallel edge pass, returns the internal edge counts and the degree sums per module
+	private <V,E> double[][] collectEdges(CompactGraph<V,E> g,final int[] membership,final int moduleCount) {
+		final int[] sources = g.getSources();
+		final int[] targets = g.getTargets();
+		int[] ranges = ParallelTasks.split(g.getEdgeCount(),taskCount);
+		List<Callable<double[][]>> edgeTasks = new ArrayList<Callable<double[][]>>();
+		for (int i=0;i<ranges.length-1;i++) {
+			final int from = ranges[i];
+			final int to = ranges[i+1];
+			edgeTasks.add(new Callable<double[][]>() {
+				@Override
+				public double[][] call() throws Exception {
+					double[] internalEdges = new double[moduleCount];
+					double[] degrees = new double[moduleCount];
+					for (int e=from;e<to;e++) {
+						int c1 = membership[sources[e]];
+						int c2 = membership[targets[e]];
+						degrees[c1] = degrees[c1]+1;
+						degrees[c2] = degrees[c2]+1;
+						if (c1==c2) {
+							internalEdges[c1] = internalEdges[c1]+1;
+						}
+					}
+					return new double[][]{internalEdges,degrees};
+				}
+			});
+		}
+
+		// merge
+		double[] internalEdges = new double[moduleCount];
+		double[] degrees = new double[moduleCount];
+		for (double[][] partial:ParallelTasks.invokeAll(executor,edgeTasks)) {
+			for (int c=0;c<moduleCount;c++) {
+				internalEdges[c] = internalEdges[c]+partial[0][c];
+				degrees[c] = degrees[c]+partial[1][c];
+			}
+		}
+		return new double[][]{internalEdges,degrees};
+	}
+
+	private boolean isParallel(CompactGraph<?,?> g) {
+		return g.getVertexCount()+g.getEdgeCount()>=threshold;
+	}
+
+}
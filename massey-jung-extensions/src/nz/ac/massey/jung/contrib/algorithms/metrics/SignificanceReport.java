@@ -0,0 +1,104 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.algorithms.metrics;
+
+/**
+ * The modularity of a graph compared with the modularity of randomised graphs with the same degrees.
+ * Reports are created by ModularitySignificance.
+ * @author jens dietrich
+ */
+public class SignificanceReport {
+
+	private double modularity = 0;
+	private double[] samples = null;
+	private double mean = 0;
+	private double standardDeviation = 0;
+	private double pValue = 0;
+
+	/**
+	 * Create a report.
+	 * @param modularity the observed modularity
+	 * @param samples the modularity of each randomised graph
+	 * @param atLeastObserved the number of samples with a modularity at least as high as the observed modularity
+	 */
+	SignificanceReport(double modularity,double[] samples,int atLeastObserved) {
+		super();
+		this.modularity = modularity;
+		this.samples = samples;
+		double sum = 0;
+		for (double sample:samples) {
+			sum = sum+sample;
+		}
+		this.mean = samples.length==0?0:sum/samples.length;
+		double squares = 0;
+		for (double sample:samples) {
+			squares = squares+(sample-mean)*(sample-mean);
+		}
+		this.standardDeviation = samples.length<2?0:Math.sqrt(squares/(samples.length-1));
+		this.pValue = (atLeastObserved+1.0)/(samples.length+1.0);
+	}
+
+	/**
+	 * Get the modularity of the graph, see Modularity#computeModularity(Graph,Transformer), every edge is counted.
+	 * @return
+	 */
+	public double getModularity() {
+		return modularity;
+	}
+
+	/**
+	 * Get the mean modularity of the randomised graphs.
+	 * @return
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Get the (sample) standard deviation of the modularity of the randomised graphs.
+	 * @return
+	 */
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	/**
+	 * Get the z-score (modularity-mean)/standard deviation. If all samples have the same modularity, this is
+	 * 0 if the modularity is the same as well, and infinite otherwise.
+	 * @return
+	 */
+	public double getZScore() {
+		if (standardDeviation==0) {
+			return modularity==mean?0:(modularity>mean?Double.POSITIVE_INFINITY:Double.NEGATIVE_INFINITY);
+		}
+		return (modularity-mean)/standardDeviation;
+	}
+
+	/**
+	 * Get the empirical p-value (r+1)/(n+1), where n is the number of samples and r the number of samples with a modularity
+	 * at least as high as the modularity of the graph.
+	 * @return
+	 */
+	public double getPValue() {
+		return pValue;
+	}
+
+	public int getSampleCount() {
+		return samples.length;
+	}
+
+	/**
+	 * Get the modularity of each randomised graph.
+	 * @return
+	 */
+	public double[] getSamples() {
+		return samples.clone();
+	}
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.collections15.Predicate;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+
+/**
+ * Int indexed snapshot of a graph. The snapshot does not change after it has been built, and it is not updated if the graph changes.
+ * Vertices are mapped to dense ids 0..|V|-1, edges to dense ids 0..|E|-1.
+ * Adjacency is stored in compressed sparse row (CSR) form: the out neighbours of vertex v are
+ * outTargets[outOffsets[v]] .. outTargets[outOffsets[v+1]-1], and outEdges holds the ids of the respective edges.
+ * In neighbours are stored the same way. Undirected edges are stored in both directions, consistent with
+ * getOutEdges and getInEdges in jung.
+ * The snapshot is built once in O(|V|+|E|), and can then be used by many algorithms without further map lookups.
+ * The arrays returned by the getters are the internal arrays (so that algorithms can traverse them without copying), and must not be modified.
+ * The lists of vertices and edges are returned as unmodifiable views.
+ * @author jens dietrich
+ * @param <V>
+ * @param <E>
+ */
+public class CompactGraph<V,E> {
+
+	private List<V> vertices = null;
+	private Map<V,Integer> vertexIds = null;
+	private List<E> edges = null;
+	private int[] sources = null;
+	private int[] targets = null;
+	private boolean[] directed = null;
+	private int[] outOffsets = null;
+	private int[] outTargets = null;
+	private int[] outEdges = null;
+	private int[] inOffsets = null;
+	private int[] inSources = null;
+	private int[] inEdges = null;
+
+	/**
+	 * Create a snapshot of a graph.
+	 * @param g
+	 */
+	public CompactGraph(Graph<V,E> g) {
+		this(g,null);
+	}
+
+	/**
+	 * Create a snapshot of a graph. Only edges accepted by the filter are included.
+	 * @param g
+	 * @param edgeFilter a filter, or null if all edges are to be included
+	 */
+	public CompactGraph(Graph<V,E> g,Predicate<E> edgeFilter) {
+		super();
+		int vertexCount = g.getVertexCount();
+		this.vertices = new ArrayList<V>(vertexCount);
+		this.vertexIds = new HashMap<V,Integer>(vertexCount*2);
+		for (V v:g.getVertices()) {
+			vertexIds.put(v,vertices.size());
+			vertices.add(v);
+		}
+
+		// edge list
+		int edgeCount = g.getEdgeCount();
+		this.edges = new ArrayList<E>(edgeCount);
+		int[] sources = new int[edgeCount];
+		int[] targets = new int[edgeCount];
+		boolean[] directed = new boolean[edgeCount];
+		int[] outDegrees = new int[vertexCount];
+		int[] inDegrees = new int[vertexCount];
+		int arcs = 0;
+		for (E e:g.getEdges()) {
+			if (edgeFilter==null || edgeFilter.evaluate(e)) {
+				Pair<V> endpoints = g.getEndpoints(e);
+				int id = edges.size();
+				int source = vertexIds.get(endpoints.getFirst());
+				int target = vertexIds.get(endpoints.getSecond());
+				edges.add(e);
+				sources[id] = source;
+				targets[id] = target;
+				directed[id] = g.getEdgeType(e)==EdgeType.DIRECTED;
+				outDegrees[source] = outDegrees[source]+1;
+				inDegrees[target] = inDegrees[target]+1;
+				arcs = arcs+1;
+				if (!directed[id] && source!=target) {
+					outDegrees[target] = outDegrees[target]+1;
+					inDegrees[source] = inDegrees[source]+1;
+					arcs = arcs+1;
+				}
+			}
+		}
+		edgeCount = edges.size();
+		if (edgeCount<sources.length) {
+			this.sources = new int[edgeCount];
+			this.targets = new int[edgeCount];
+			this.directed = new boolean[edgeCount];
+			System.arraycopy(sources,0,this.sources,0,edgeCount);
+			System.arraycopy(targets,0,this.targets,0,edgeCount);
+			System.arraycopy(directed,0,this.directed,0,edgeCount);
+		}
+		else {
+			this.sources = sources;
+			this.targets = targets;
+			this.directed = directed;
+		}
+
+		// adjacency
+		this.outOffsets = offsets(outDegrees);
+		this.inOffsets = offsets(inDegrees);
+		this.outTargets = new int[arcs];
+		this.outEdges = new int[arcs];
+		this.inSources = new int[arcs];
+		this.inEdges = new int[arcs];
+		// reuse degree arrays as insert positions
+		System.arraycopy(outOffsets,0,outDegrees,0,vertexCount);
+		System.arraycopy(inOffsets,0,inDegrees,0,vertexCount);
+		for (int e=0;e<edgeCount;e++) {
+			int source = this.sources[e];
+			int target = this.targets[e];
+			int pos = outDegrees[source]++;
+			outTargets[pos] = target;
+			outEdges[pos] = e;
+			pos = inDegrees[target]++;
+			inSources[pos] = source;
+			inEdges[pos] = e;
+			if (!this.directed[e] && source!=target) {
+				pos = outDegrees[target]++;
+				outTargets[pos] = source;
+				outEdges[pos] = e;
+				pos = inDegrees[source]++;
+				inSources[pos] = target;
+				inEdges[pos] = e;
+			}
+		}
+	}
+
+	private static int[] offsets(int[] degrees) {
+		int[] offsets = new int[degrees.length+1];
+		for (int i=0;i<degrees.length;i++) {
+			offsets[i+1] = offsets[i]+degrees[i];
+		}
+		return offsets;
+	}
+
+	public int getVertexCount() {
+		return vertices.size();
+	}
+
+	public int getEdgeCount() {
+		return edges.size();
+	}
+
+	/**
+	 * Get the vertex with the given id.
+	 * @param id
+	 * @return
+	 */
+	public V getVertex(int id) {
+		return vertices.get(id);
+	}
+
+	/**
+	 * Get the id of a vertex.
+	 * @param v
+	 * @return the id, or -1 if the vertex is not in the graph
+	 */
+	public int getId(V v) {
+		Integer id = vertexIds.get(v);
+		return id==null?-1:id;
+	}
+
+	/**
+	 * Get the edge with the given id.
+	 * @param id
+	 * @return
+	 */
+	public E getEdge(int id) {
+		return edges.get(id);
+	}
+
+	/**
+	 * Get the vertices, indexed by id.
+	 * @return an unmodifiable list
+	 */
+	public List<V> getVertices() {
+		return Collections.unmodifiableList(vertices);
+	}
+
+	/**
+	 * Get the edges, indexed by id.
+	 * @return an unmodifiable list
+	 */
+	public List<E> getEdges() {
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Get the source (or first end point for undirected edges) of each edge, indexed by edge id.
+	 * @return the internal array, must not be modified
+	 */
+	public int[] getSources() {
+		return sources;
+	}
+
+	/**
+	 * Get the target (or second end point for undirected edges) of each edge, indexed by edge id.
+	 * @return the internal array, must not be modified
+	 */
+	public int[] getTargets() {
+		return targets;
+	}
+
+	public boolean isDirected(int edge) {
+		return directed[edge];
+	}
+
+	public int[] getOutOffsets() {
+		return outOffsets;
+	}
+
+	public int[] getOutTargets() {
+		return outTargets;
+	}
+
+	public int[] getOutEdges() {
+		return outEdges;
+	}
+
+	public int[] getInOffsets() {
+		return inOffsets;
+	}
+
+	public int[] getInSources() {
+		return inSources;
+	}
+
+	public int[] getInEdges() {
+		return inEdges;
+	}
+
+	public int outDegree(int v) {
+		return outOffsets[v+1]-outOffsets[v];
+	}
+
+	public int inDegree(int v) {
+		return inOffsets[v+1]-inOffsets[v];
+	}
+
+}
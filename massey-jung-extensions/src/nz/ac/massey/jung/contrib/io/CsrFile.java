@@ -0,0 +1,80 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read only access to a graph stored in a CSR file (see GraphFiles). The offsets and targets are memory mapped,
+ * only the header is read when the file is opened.
+ * @author jens dietrich
+ */
+public class CsrFile implements Closeable {
+
+	private RandomAccessFile file = null;
+	private int vertexCount = 0;
+	private long edgeCount = 0;
+	private MappedLongArray offsets = null;
+	private MappedIntArray targets = null;
+
+	/**
+	 * Open a file.
+	 * @param file
+	 * @throws IOException
+	 */
+	public CsrFile(File file) throws IOException {
+		super();
+		this.file = new RandomAccessFile(file,"r");
+		try {
+			FileChannel channel = this.file.getChannel();
+			long[] header = GraphFiles.readHeader(channel,GraphFiles.CSR_MAGIC);
+			this.vertexCount = (int)header[0];
+			this.edgeCount = header[1];
+			this.offsets = new MappedLongArray(channel,FileChannel.MapMode.READ_ONLY,GraphFiles.HEADER_SIZE,vertexCount+1);
+			this.targets = new MappedIntArray(channel,FileChannel.MapMode.READ_ONLY,GraphFiles.HEADER_SIZE+8L*(vertexCount+1),edgeCount);
+		}
+		catch (IOException x) {
+			this.file.close();
+			throw x;
+		}
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Get the offsets, the out edges of vertex v are at positions offsets[v] .. offsets[v+1]-1 of the targets.
+	 * @return
+	 */
+	public MappedLongArray getOffsets() {
+		return offsets;
+	}
+
+	public MappedIntArray getTargets() {
+		return targets;
+	}
+
+	/**
+	 * Close the file. Mapped buffers remain valid until they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.collections15.Transformer;
+
+/**
+ * Read only access to a graph file written by GraphFiles.writeGraph. All sections are memory mapped, only the header is read
+ * when the file is opened. Adjacency and module ids are used directly from the mapped buffers (see Modularity and TarjansAlgorithm),
+ * labels are decoded on demand.
+ * Vertices are created from their labels by a parser, by default the labels themselves are used as vertices.
+ * @author jens dietrich
+ * @param <V> the vertex type
+ */
+public class GraphFile<V> implements Closeable {
+
+	private static final Transformer<String,String> IDENTITY = new Transformer<String,String>() {
+		@Override
+		public String transform(String label) {
+			return label;
+		}
+	};
+
+	private RandomAccessFile file = null;
+	private Transformer<String,V> parser = null;
+	private boolean undirected = false;
+	private int vertexCount = 0;
+	private int moduleCount = 0;
+	private long edgeCount = 0;
+	private MappedLongArray offsets = null;
+	private MappedLongArray vertexLabelOffsets = null;
+	private MappedLongArray moduleLabelOffsets = null;
+	private MappedIntArray targets = null;
+	private MappedIntArray moduleIds = null;
+	private MappedByteArray labels = null;
+
+	/**
+	 * Open a graph file, labels are used as vertices.
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static GraphFile<String> open(File file) throws IOException {
+		return new GraphFile<String>(file,IDENTITY);
+	}
+
+	/**
+	 * Open a graph file.
+	 * @param file
+	 * @param parser creates vertices from their labels
+	 * @throws IOException
+	 */
+	public GraphFile(File file,Transformer<String,V> parser) throws IOException {
+		super();
+		this.parser = parser;
+		this.file = new RandomAccessFile(file,"r");
+		try {
+			FileChannel channel = this.file.getChannel();
+			ByteBuffer header = GraphFiles.readHeader(channel,GraphFiles.GRAPH_MAGIC,GraphFiles.GRAPH_HEADER_SIZE);
+			int flags = header.getInt();
+			this.undirected = (flags&GraphFiles.UNDIRECTED)!=0;
+			this.vertexCount = header.getInt();
+			this.moduleCount = header.getInt();
+			this.edgeCount = header.getLong();
+			long entryCount = header.getLong();
+			long labelSize = header.getLong();
+
+			long position = GraphFiles.GRAPH_HEADER_SIZE;
+			this.offsets = new MappedLongArray(channel,FileChannel.MapMode.READ_ONLY,position,vertexCount+1);
+			position = position+8L*(vertexCount+1);
+			this.vertexLabelOffsets = new MappedLongArray(channel,FileChannel.MapMode.READ_ONLY,position,vertexCount+1);
+			position = position+8L*(vertexCount+1);
+			this.moduleLabelOffsets = new MappedLongArray(channel,FileChannel.MapMode.READ_ONLY,position,moduleCount+1);
+			position = position+8L*(moduleCount+1);
+			this.targets = new MappedIntArray(channel,FileChannel.MapMode.READ_ONLY,position,entryCount);
+			position = position+4L*entryCount;
+			if ((flags&GraphFiles.MODULES)!=0) {
+				this.moduleIds = new MappedIntArray(channel,FileChannel.MapMode.READ_ONLY,position,vertexCount);
+				position = position+4L*vertexCount;
+			}
+			this.labels = new MappedByteArray(channel,FileChannel.MapMode.READ_ONLY,position,labelSize);
+		}
+		catch (IOException x) {
+			this.file.close();
+			throw x;
+		}
+	}
+
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Get the number of edges. Undirected edges (except loops) are stored twice in the adjacency,
+	 * so in undirected graphs this is less than the number of adjacency entries.
+	 * @return
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Whether the edges are undirected. Undirected edges are stored in the adjacency of both end points.
+	 * @return
+	 */
+	public boolean isUndirected() {
+		return undirected;
+	}
+
+	/**
+	 * Get the adjacency offsets, the out edges of vertex v are at positions offsets[v] .. offsets[v+1]-1 of the targets.
+	 * @return
+	 */
+	public MappedLongArray getOffsets() {
+		return offsets;
+	}
+
+	public MappedIntArray getTargets() {
+		return targets;
+	}
+
+	public boolean hasModules() {
+		return moduleIds!=null;
+	}
+
+	/**
+	 * Get the number of modules.
+	 * @return the number of modules, 0 if the file has no module column
+	 */
+	public int getModuleCount() {
+		return moduleCount;
+	}
+
+	/**
+	 * Get the module id of each vertex.
+	 * @return the module ids, or null if the file has no module column
+	 */
+	public MappedIntArray getModuleIds() {
+		return moduleIds;
+	}
+
+	/**
+	 * Get the vertex with the given id.
+	 * @param id
+	 * @return
+	 */
+	public V getVertex(int id) {
+		return parser.transform(getVertexLabel(id));
+	}
+
+	public String getVertexLabel(int id) {
+		return decode(vertexLabelOffsets,id);
+	}
+
+	public String getModuleLabel(int id) {
+		return decode(moduleLabelOffsets,id);
+	}
+
+	/**
+	 * Get the labels of the modules, the position of a label in the list is the module id.
+	 * @return
+	 */
+	public List<String> getModuleLabels() {
+		List<String> modules = new ArrayList<String>(moduleCount);
+		for (int c=0;c<moduleCount;c++) {
+			modules.add(getModuleLabel(c));
+		}
+		return modules;
+	}
+
+	private String decode(MappedLongArray labelOffsets,int id) {
+		long start = labelOffsets.get(id);
+		byte[] bytes = new byte[(int)(labelOffsets.get(id+1)-start)];
+		labels.get(start,bytes,0,bytes.length);
+		return new String(bytes,GraphFiles.UTF8);
+	}
+
+	/**
+	 * Close the file. Mapped buffers remain valid until they are garbage collected.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
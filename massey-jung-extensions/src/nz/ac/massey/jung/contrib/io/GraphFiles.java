@@ -0,0 +1,332 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ * Utilities to write and convert binary graph files. Edge lists and CSR files start with a header consisting of
+ * a magic number (int), the number of vertices (int) and the number of edges (long). Vertices are identified by their ids 0..|V|-1.
+ * <ul>
+ * <li>Edge lists: the header is followed by the edges, each edge is stored as source and target id (int).</li>
+ * <li>CSR files: the header is followed by |V|+1 offsets (long), and the targets of the edges (int). The out edges of vertex v are
+ * stored at the positions offsets[v] .. offsets[v+1]-1 of the targets.</li>
+ * <li>Graph files: CSR adjacency plus vertex labels and (optionally) module membership, see writeGraph.</li>
+ * </ul>
+ * All values are stored in little endian byte order. Edges are directed, undirected edges are stored in both directions.
+ * Files are written and converted through memory mapped buffers, edges are not loaded onto the heap.
+ * @author jens dietrich
+ */
+public class GraphFiles {
+
+	public static final int EDGE_LIST_MAGIC = 0x45444731;
+	public static final int CSR_MAGIC = 0x43535231;
+	public static final int HEADER_SIZE = 16;
+	public static final int GRAPH_MAGIC = 0x47524631;
+	public static final int GRAPH_HEADER_SIZE = 40;
+	// flags used in the header of graph files
+	public static final int UNDIRECTED = 1;
+	public static final int MODULES = 2;
+	static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Write the edges of a graph snapshot as edge list.
+	 * @param g
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writeEdgeList(CompactGraph<?,?> g,File file) throws IOException {
+		int[] offsets = g.getOutOffsets();
+		int[] targets = g.getOutTargets();
+		RandomAccessFile out = new RandomAccessFile(file,"rw");
+		try {
+			out.setLength(HEADER_SIZE+8L*targets.length);
+			FileChannel channel = out.getChannel();
+			writeHeader(channel,EDGE_LIST_MAGIC,g.getVertexCount(),targets.length);
+			MappedIntArray edges = new MappedIntArray(channel,FileChannel.MapMode.READ_WRITE,HEADER_SIZE,2L*targets.length);
+			for (int v=0;v<g.getVertexCount();v++) {
+				for (int i=offsets[v];i<offsets[v+1];i++) {
+					edges.set(2L*i,v);
+					edges.set(2L*i+1,targets[i]);
+				}
+			}
+			edges.force();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Write the adjacency of a graph snapshot as CSR file.
+	 * @param g
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writeCsr(CompactGraph<?,?> g,File file) throws IOException {
+		int vertexCount = g.getVertexCount();
+		int[] offsets = g.getOutOffsets();
+		int[] targets = g.getOutTargets();
+		RandomAccessFile out = new RandomAccessFile(file,"rw");
+		try {
+			out.setLength(HEADER_SIZE+8L*(vertexCount+1)+4L*targets.length);
+			FileChannel channel = out.getChannel();
+			writeHeader(channel,CSR_MAGIC,vertexCount,targets.length);
+			MappedLongArray mappedOffsets = new MappedLongArray(channel,FileChannel.MapMode.READ_WRITE,HEADER_SIZE,vertexCount+1);
+			for (int v=0;v<=vertexCount;v++) {
+				mappedOffsets.set(v,offsets[v]);
+			}
+			mappedOffsets.force();
+			MappedIntArray mappedTargets = new MappedIntArray(channel,FileChannel.MapMode.READ_WRITE,HEADER_SIZE+8L*(vertexCount+1),targets.length);
+			for (int i=0;i<targets.length;i++) {
+				mappedTargets.set(i,targets[i]);
+			}
+			mappedTargets.force();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Convert an edge list into a CSR file. The conversion reads the edge list twice, and uses the offsets section of the
+	 * CSR file to count edges, no state is kept on the heap. Edges are sorted by source, the order of edges with the same
+	 * source is preserved.
+	 * @param edgeList
+	 * @param csr
+	 * @throws IOException
+	 */
+	public static void convertEdgeListToCsr(File edgeList,File csr) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(edgeList,"r");
+		try {
+			FileChannel inChannel = in.getChannel();
+			long[] header = readHeader(inChannel,EDGE_LIST_MAGIC);
+			int vertexCount = (int)header[0];
+			long edgeCount = header[1];
+			MappedIntArray edges = new MappedIntArray(inChannel,FileChannel.MapMode.READ_ONLY,HEADER_SIZE,2*edgeCount);
+
+			RandomAccessFile out = new RandomAccessFile(csr,"rw");
+			try {
+				out.setLength(0);
+				out.setLength(HEADER_SIZE+8L*(vertexCount+1)+4L*edgeCount);
+				FileChannel outChannel = out.getChannel();
+				writeHeader(outChannel,CSR_MAGIC,vertexCount,edgeCount);
+				MappedLongArray offsets = new MappedLongArray(outChannel,FileChannel.MapMode.READ_WRITE,HEADER_SIZE,vertexCount+1);
+				MappedIntArray targets = new MappedIntArray(outChannel,FileChannel.MapMode.READ_WRITE,HEADER_SIZE+8L*(vertexCount+1),edgeCount);
+
+				// count the out edges of each vertex
+				for (long e=0;e<edgeCount;e++) {
+					int source = edges.get(2*e);
+					int target = edges.get(2*e+1);
+					if (source<0 || source>=vertexCount || target<0 || target>=vertexCount) {
+						throw new IOException("Invalid edge " + source + " -> " + target + " in edge list with " + vertexCount + " vertices");
+					}
+					offsets.set(source+1,offsets.get(source+1)+1);
+				}
+				for (int v=0;v<vertexCount;v++) {
+					offsets.set(v+1,offsets.get(v+1)+offsets.get(v));
+				}
+				// fill the targets, offsets[v] is used as position of the next edge of v, and is afterwards the start of v+1
+				for (long e=0;e<edgeCount;e++) {
+					int source = edges.get(2*e);
+					long position = offsets.get(source);
+					targets.set(position,edges.get(2*e+1));
+					offsets.set(source,position+1);
+				}
+				for (int v=vertexCount;v>0;v--) {
+					offsets.set(v,offsets.get(v-1));
+				}
+				offsets.set(0,0);
+				offsets.force();
+				targets.force();
+			}
+			finally {
+				out.close();
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Write a graph file. The file contains the following sections:
+	 * <ol>
+	 * <li>header: magic number (int), flags (int, UNDIRECTED and MODULES), number of vertices |V| (int), number of modules k (int, 0 if there is no module column),
+	 * number of edges (long), number of adjacency entries (long, undirected edges are stored in both directions), size of the label section (long)</li>
+	 * <li>adjacency offsets: |V|+1 longs</li>
+	 * <li>vertex label offsets: |V|+1 longs, positions in the label section</li>
+	 * <li>module label offsets: k+1 longs, positions in the label section</li>
+	 * <li>adjacency targets: one int per adjacency entry</li>
+	 * <li>module ids: |V| ints (only if there is a module column)</li>
+	 * <li>labels: UTF-8 encoded vertex labels followed by module labels</li>
+	 * </ol>
+	 * Labels are the string representations of vertices and modules. Graphs must not contain both directed and undirected edges.
+	 * Use GraphFile to read graph files.
+	 * @param g the graph
+	 * @param moduleMembership the module membership, or null if the file should not have a module column
+	 * @param file
+	 * @throws IOException
+	 */
+	public static <V,E,M> void writeGraph(Graph<V,E> g,Transformer<V,M> moduleMembership,File file) throws IOException {
+		CompactGraph<V,E> snapshot = new CompactGraph<V,E>(g);
+		int vertexCount = snapshot.getVertexCount();
+		int[] offsets = snapshot.getOutOffsets();
+		int[] targets = snapshot.getOutTargets();
+		boolean undirected = g.getEdgeCount()==0?g.getDefaultEdgeType()==EdgeType.UNDIRECTED:!snapshot.isDirected(0);
+		for (int e=0;e<snapshot.getEdgeCount();e++) {
+			if (snapshot.isDirected(e)==undirected) {
+				throw new IllegalArgumentException("Graphs with directed and undirected edges cannot be written to graph files");
+			}
+		}
+
+		// labels and modules
+		long labelSize = 0;
+		byte[][] vertexLabels = new byte[vertexCount][];
+		for (int v=0;v<vertexCount;v++) {
+			vertexLabels[v] = String.valueOf(snapshot.getVertex(v)).getBytes(UTF8);
+			labelSize = labelSize+vertexLabels[v].length;
+		}
+		List<M> modules = new ArrayList<M>();
+		int[] moduleIds = null;
+		if (moduleMembership!=null) {
+			Map<M,Integer> ids = new HashMap<M,Integer>();
+			moduleIds = new int[vertexCount];
+			for (int v=0;v<vertexCount;v++) {
+				M module = moduleMembership.transform(snapshot.getVertex(v));
+				Integer id = ids.get(module);
+				if (id==null) {
+					id = modules.size();
+					ids.put(module,id);
+					modules.add(module);
+				}
+				moduleIds[v] = id;
+			}
+		}
+		byte[][] moduleLabels = new byte[modules.size()][];
+		for (int c=0;c<moduleLabels.length;c++) {
+			moduleLabels[c] = String.valueOf(modules.get(c)).getBytes(UTF8);
+			labelSize = labelSize+moduleLabels[c].length;
+		}
+
+		long vertexLabelPosition = GRAPH_HEADER_SIZE+8L*(vertexCount+1);
+		long moduleLabelPosition = vertexLabelPosition+8L*(vertexCount+1);
+		long targetPosition = moduleLabelPosition+8L*(modules.size()+1);
+		long moduleIdPosition = targetPosition+4L*targets.length;
+		long labelPosition = moduleIdPosition+(moduleIds==null?0:4L*vertexCount);
+
+		RandomAccessFile out = new RandomAccessFile(file,"rw");
+		try {
+			out.setLength(0);
+			out.setLength(labelPosition+labelSize);
+			FileChannel channel = out.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(GRAPH_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(GRAPH_MAGIC).putInt((undirected?UNDIRECTED:0)|(moduleIds==null?0:MODULES)).putInt(vertexCount).putInt(modules.size());
+			header.putLong(snapshot.getEdgeCount()).putLong(targets.length).putLong(labelSize);
+			header.flip();
+			channel.write(header,0);
+
+			MappedLongArray mappedOffsets = new MappedLongArray(channel,FileChannel.MapMode.READ_WRITE,GRAPH_HEADER_SIZE,vertexCount+1);
+			for (int v=0;v<=vertexCount;v++) {
+				mappedOffsets.set(v,offsets[v]);
+			}
+			mappedOffsets.force();
+			MappedIntArray mappedTargets = new MappedIntArray(channel,FileChannel.MapMode.READ_WRITE,targetPosition,targets.length);
+			for (int i=0;i<targets.length;i++) {
+				mappedTargets.set(i,targets[i]);
+			}
+			mappedTargets.force();
+			if (moduleIds!=null) {
+				MappedIntArray mappedModuleIds = new MappedIntArray(channel,FileChannel.MapMode.READ_WRITE,moduleIdPosition,vertexCount);
+				for (int v=0;v<vertexCount;v++) {
+					mappedModuleIds.set(v,moduleIds[v]);
+				}
+				mappedModuleIds.force();
+			}
+
+			MappedByteArray labels = new MappedByteArray(channel,FileChannel.MapMode.READ_WRITE,labelPosition,labelSize);
+			long position = writeLabels(channel,vertexLabelPosition,vertexLabels,labels,0);
+			writeLabels(channel,moduleLabelPosition,moduleLabels,labels,position);
+			labels.force();
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	// write labels and their offsets, returns the position after the last label
+	private static long writeLabels(FileChannel channel,long offsetPosition,byte[][] labels,MappedByteArray labelSection,long position) throws IOException {
+		MappedLongArray labelOffsets = new MappedLongArray(channel,FileChannel.MapMode.READ_WRITE,offsetPosition,labels.length+1);
+		for (int i=0;i<labels.length;i++) {
+			labelOffsets.set(i,position);
+			labelSection.set(position,labels[i]);
+			position = position+labels[i].length;
+		}
+		labelOffsets.set(labels.length,position);
+		labelOffsets.force();
+		return position;
+	}
+
+	private static void writeHeader(FileChannel channel,int magic,int vertexCount,long edgeCount) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(magic).putInt(vertexCount).putLong(edgeCount);
+		header.flip();
+		channel.write(header,0);
+	}
+
+	/**
+	 * Read the header of a graph file.
+	 * @param channel
+	 * @param magic the expected magic number
+	 * @return the number of vertices and the number of edges
+	 * @throws IOException if the file is too short, or has a different magic number
+	 */
+	static long[] readHeader(FileChannel channel,int magic) throws IOException {
+		ByteBuffer header = readHeader(channel,magic,HEADER_SIZE);
+		return new long[]{header.getInt(),header.getLong()};
+	}
+
+	/**
+	 * Read the header of a graph file.
+	 * @param channel
+	 * @param magic the expected magic number
+	 * @param size the size of the header
+	 * @return the header, positioned after the magic number
+	 * @throws IOException if the file is too short, or has a different magic number
+	 */
+	static ByteBuffer readHeader(FileChannel channel,int magic,int size) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		while (header.hasRemaining()) {
+			if (channel.read(header,header.position())<0) {
+				throw new IOException("Graph file is too short");
+			}
+		}
+		header.flip();
+		int found = header.getInt();
+		if (found!=magic) {
+			throw new IOException("Unexpected file type, found magic number " + Integer.toHexString(found) + " but expected " + Integer.toHexString(magic));
+		}
+		return header;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A byte array stored in a file and accessed through memory mapped buffers, see MappedIntArray.
+ * @author jens dietrich
+ */
+public class MappedByteArray {
+
+	// elements per chunk
+	private static final int CHUNK_BITS = 29;
+	private static final long CHUNK_MASK = (1L<<CHUNK_BITS)-1;
+
+	private MappedByteBuffer[] buffers = null;
+	private long length = 0;
+
+	/**
+	 * Map an array.
+	 * @param channel the file channel
+	 * @param mode the map mode, READ_ONLY or READ_WRITE
+	 * @param position the position of the first element in the file (in bytes)
+	 * @param length the number of elements
+	 * @throws IOException
+	 */
+	public MappedByteArray(FileChannel channel,FileChannel.MapMode mode,long position,long length) throws IOException {
+		super();
+		this.length = length;
+		int chunkCount = (int)((length+CHUNK_MASK)>>>CHUNK_BITS);
+		this.buffers = new MappedByteBuffer[chunkCount];
+		for (int c=0;c<chunkCount;c++) {
+			long start = (long)c<<CHUNK_BITS;
+			buffers[c] = channel.map(mode,position+start,Math.min(length-start,1L<<CHUNK_BITS));
+		}
+	}
+
+	public long length() {
+		return length;
+	}
+
+	public byte get(long index) {
+		return buffers[(int)(index>>>CHUNK_BITS)].get((int)(index&CHUNK_MASK));
+	}
+
+	public void set(long index,byte value) {
+		buffers[(int)(index>>>CHUNK_BITS)].put((int)(index&CHUNK_MASK),value);
+	}
+
+	/**
+	 * Copy a range of bytes, the range may span several chunks.
+	 * @param index the position of the first byte to copy
+	 * @param bytes the target
+	 * @param offset the position in the target
+	 * @param count the number of bytes to copy
+	 */
+	public void get(long index,byte[] bytes,int offset,int count) {
+		while (count>0) {
+			ByteBuffer chunk = buffers[(int)(index>>>CHUNK_BITS)].duplicate();
+			int position = (int)(index&CHUNK_MASK);
+			int n = Math.min(count,chunk.limit()-position);
+			chunk.position(position);
+			chunk.get(bytes,offset,n);
+			index = index+n;
+			offset = offset+n;
+			count = count-n;
+		}
+	}
+
+	/**
+	 * Copy bytes into the array, the range may span several chunks.
+	 * @param index the position of the first byte to write
+	 * @param bytes the source
+	 */
+	public void set(long index,byte[] bytes) {
+		int offset = 0;
+		while (offset<bytes.length) {
+			ByteBuffer chunk = buffers[(int)(index>>>CHUNK_BITS)].duplicate();
+			int position = (int)(index&CHUNK_MASK);
+			int n = Math.min(bytes.length-offset,chunk.limit()-position);
+			chunk.position(position);
+			chunk.put(bytes,offset,n);
+			index = index+n;
+			offset = offset+n;
+		}
+	}
+
+	/**
+	 * Write changes to the file.
+	 */
+	public void force() {
+		for (MappedByteBuffer buffer:buffers) {
+			buffer.force();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.io;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An int array stored in a file and accessed through memory mapped buffers, the values are not stored on the heap.
+ * As a single mapped buffer is limited to 2GB, the array is mapped in several chunks, so that arrays can have more than 2^31 elements.
+ * Values are stored in little endian byte order.
+ * @author jens dietrich
+ */
+public class MappedIntArray {
+
+	// elements per chunk
+	private static final int CHUNK_BITS = 27;
+	private static final long CHUNK_MASK = (1L<<CHUNK_BITS)-1;
+
+	private MappedByteBuffer[] buffers = null;
+	private IntBuffer[] chunks = null;
+	private long length = 0;
+
+	/**
+	 * Map an array.
+	 * @param channel the file channel
+	 * @param mode the map mode, READ_ONLY or READ_WRITE
+	 * @param position the position of the first element in the file (in bytes)
+	 * @param length the number of elements
+	 * @throws IOException
+	 */
+	public MappedIntArray(FileChannel channel,FileChannel.MapMode mode,long position,long length) throws IOException {
+		super();
+		this.length = length;
+		int chunkCount = (int)((length+CHUNK_MASK)>>>CHUNK_BITS);
+		this.buffers = new MappedByteBuffer[chunkCount];
+		this.chunks = new IntBuffer[chunkCount];
+		for (int c=0;c<chunkCount;c++) {
+			long start = (long)c<<CHUNK_BITS;
+			long size = Math.min(length-start,1L<<CHUNK_BITS);
+			buffers[c] = channel.map(mode,position+4*start,4*size);
+			buffers[c].order(ByteOrder.LITTLE_ENDIAN);
+			chunks[c] = buffers[c].asIntBuffer();
+		}
+	}
+
+	public long length() {
+		return length;
+	}
+
+	public int get(long index) {
+		return chunks[(int)(index>>>CHUNK_BITS)].get((int)(index&CHUNK_MASK));
+	}
+
+	public void set(long index,int value) {
+		chunks[(int)(index>>>CHUNK_BITS)].put((int)(index&CHUNK_MASK),value);
+	}
+
+	/**
+	 * Write changes to the file.
+	 */
+	public void force() {
+		for (MappedByteBuffer buffer:buffers) {
+			buffer.force();
+		}
+	}
+}
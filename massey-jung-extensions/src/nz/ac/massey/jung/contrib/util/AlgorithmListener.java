@@ -0,0 +1,68 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.util;
+
+/**
+ * Receives measurements from the algorithms, see Instrumentation.
+ * Algorithms accumulate counts locally and report them once per phase, so listeners are not invoked from inner loops.
+ * Listeners may be invoked from several threads at the same time, and must be thread-safe.
+ * Metric names are the constants defined here, prefixed with the name of the algorithm (e.g. "tarjan.search").
+ * @author jens dietrich
+ */
+public interface AlgorithmListener {
+
+	// phases, reported by time
+	public static final String MEMBERSHIP_RESOLUTION = "membership";
+	public static final String ADJACENCY = "adjacency";
+	public static final String EDGE_PASS = "edgePass";
+	public static final String SEARCH = "search";
+	public static final String CONDENSATION = "condensation";
+	// counters, reported by count
+	public static final String VERTICES_VISITED = "vertices";
+	public static final String EDGES_VISITED = "edges";
+	public static final String TRANSFORMER_INVOCATIONS = "transformer";
+	public static final String PREDICATE_INVOCATIONS = "predicate";
+	public static final String COMPONENTS = "components";
+	// values, reported by record
+	public static final String STACK_DEPTH = "stackDepth";
+
+	/**
+	 * Listener that ignores all measurements, this is the default.
+	 */
+	public static final AlgorithmListener NONE = new AlgorithmListener() {
+		@Override
+		public void count(String counter,long amount) {}
+		@Override
+		public void time(String phase,long nanos) {}
+		@Override
+		public void record(String name,long value) {}
+	};
+
+	/**
+	 * Add to a counter, such as the number of edges visited.
+	 * @param counter the counter name
+	 * @param amount
+	 */
+	public void count(String counter,long amount);
+
+	/**
+	 * Report the wall time of a phase of an algorithm.
+	 * @param phase the phase name
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void time(String phase,long nanos);
+
+	/**
+	 * Report a value observed during a run, such as the peak depth of a search.
+	 * @param name the value name
+	 * @param value
+	 */
+	public void record(String name,long value);
+}
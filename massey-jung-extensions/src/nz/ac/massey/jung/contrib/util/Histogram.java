@@ -0,0 +1,124 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of non-negative long values with logarithmic buckets.
+ * Bucket 0 counts the value 0, bucket i>0 counts values in [2^(i-1),2^i). Recording is lock free and does not allocate,
+ * percentiles are estimated by the upper bound of the bucket containing them, and are therefore at most twice the exact value.
+ * Negative values are recorded as 0.
+ * @author jens dietrich
+ */
+public class Histogram {
+
+	private AtomicLongArray buckets = new AtomicLongArray(65);
+	private AtomicLong count = new AtomicLong();
+	private AtomicLong sum = new AtomicLong();
+	private AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+	/**
+	 * Record a value.
+	 * @param value
+	 */
+	public void record(long value) {
+		if (value<0) value = 0;
+		buckets.incrementAndGet(64-Long.numberOfLeadingZeros(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long current = min.get();
+		while (value<current && !min.compareAndSet(current,value)) {
+			current = min.get();
+		}
+		current = max.get();
+		while (value>current && !max.compareAndSet(current,value)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * Get the smallest value recorded.
+	 * @return the min, or 0 if no values have been recorded
+	 */
+	public long getMin() {
+		return count.get()==0?0:min.get();
+	}
+
+	/**
+	 * Get the largest value recorded.
+	 * @return the max, or 0 if no values have been recorded
+	 */
+	public long getMax() {
+		return count.get()==0?0:max.get();
+	}
+
+	public double getMean() {
+		long n = count.get();
+		return n==0?0:((double)sum.get())/n;
+	}
+
+	/**
+	 * Estimate a percentile.
+	 * @param percentile a value between 0 and 100
+	 * @return the upper bound of the bucket containing the percentile, but not more than the max
+	 */
+	public long getPercentile(double percentile) {
+		long n = count.get();
+		if (n==0) return 0;
+		long rank = (long)Math.ceil(percentile/100*n);
+		long seen = 0;
+		for (int i=0;i<buckets.length();i++) {
+			seen = seen+buckets.get(i);
+			if (seen>=rank && seen>0) {
+				long upper = i==0?0:(i==64?Long.MAX_VALUE:(1L<<i)-1);
+				return Math.min(upper,getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Get the number of values in a bucket.
+	 * @param bucket the bucket index, 0..64
+	 * @return
+	 */
+	public long getBucketCount(int bucket) {
+		return buckets.get(bucket);
+	}
+
+	/**
+	 * Discard all values.
+	 */
+	public void reset() {
+		for (int i=0;i<buckets.length();i++) {
+			buckets.set(i,0);
+		}
+		count.set(0);
+		sum.set(0);
+		min.set(Long.MAX_VALUE);
+		max.set(Long.MIN_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount() + ", min=" + getMin() + ", mean=" + getMean() + ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99) + ", max=" + getMax();
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.util;
+
+/**
+ * Registry for the listener that receives measurements from Modularity and TarjansAlgorithm.
+ * By default, AlgorithmListener.NONE is used, and the algorithms skip timing altogether.
+ * The listener is read once at the start of each computation, changes do not affect computations already running.
+ * @author jens dietrich
+ */
+public class Instrumentation {
+
+	private static volatile AlgorithmListener listener = AlgorithmListener.NONE;
+
+	/**
+	 * Set the listener.
+	 * @param listener the listener, or null to disable instrumentation
+	 */
+	public static void setListener(AlgorithmListener listener) {
+		Instrumentation.listener = listener==null?AlgorithmListener.NONE:listener;
+	}
+
+	public static AlgorithmListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * Whether a listener is set.
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return listener!=AlgorithmListener.NONE;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener that keeps measurements in memory: counters are summed up, phase times (in nanoseconds) and recorded values
+ * are collected in histograms. Snapshots of all counters and histograms can be exported, e.g. to be logged after each job.
+ * Usage: <code>MetricsSink sink = new MetricsSink(); Instrumentation.setListener(sink);</code>.
+ * Instances are thread-safe.
+ * @author jens dietrich
+ */
+public class MetricsSink implements AlgorithmListener {
+
+	private ConcurrentMap<String,AtomicLong> counters = new ConcurrentHashMap<String,AtomicLong>();
+	private ConcurrentMap<String,Histogram> histograms = new ConcurrentHashMap<String,Histogram>();
+
+	@Override
+	public void count(String counter,long amount) {
+		AtomicLong value = counters.get(counter);
+		if (value==null) {
+			AtomicLong newValue = new AtomicLong();
+			value = counters.putIfAbsent(counter,newValue);
+			if (value==null) value = newValue;
+		}
+		value.addAndGet(amount);
+	}
+
+	@Override
+	public void time(String phase,long nanos) {
+		getOrCreateHistogram(phase).record(nanos);
+	}
+
+	@Override
+	public void record(String name,long value) {
+		getOrCreateHistogram(name).record(value);
+	}
+
+	/**
+	 * Get the value of a counter.
+	 * @param counter
+	 * @return the value, 0 if nothing has been counted
+	 */
+	public long getCounter(String counter) {
+		AtomicLong value = counters.get(counter);
+		return value==null?0:value.get();
+	}
+
+	/**
+	 * Get the histogram of a phase or a recorded value.
+	 * @param name
+	 * @return the histogram, or null if nothing has been recorded
+	 */
+	public Histogram getHistogram(String name) {
+		return histograms.get(name);
+	}
+
+	/**
+	 * Get a snapshot of all counters, sorted by name.
+	 * @return
+	 */
+	public Map<String,Long> getCounters() {
+		Map<String,Long> snapshot = new TreeMap<String,Long>();
+		for (Map.Entry<String,AtomicLong> counter:counters.entrySet()) {
+			snapshot.put(counter.getKey(),counter.getValue().get());
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Get all histograms, sorted by name. The histograms are live, they are not copied.
+	 * @return
+	 */
+	public Map<String,Histogram> getHistograms() {
+		return new TreeMap<String,Histogram>(histograms);
+	}
+
+	/**
+	 * Discard all measurements.
+	 */
+	public void reset() {
+		counters.clear();
+		histograms.clear();
+	}
+
+	private Histogram getOrCreateHistogram(String name) {
+		Histogram histogram = histograms.get(name);
+		if (histogram==null) {
+			Histogram newHistogram = new Histogram();
+			histogram = histograms.putIfAbsent(name,newHistogram);
+			if (histogram==null) histogram = newHistogram;
+		}
+		return histogram;
+	}
+
+	/**
+	 * One line per counter and histogram, times are in nanoseconds.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder b = new StringBuilder();
+		for (Map.Entry<String,Long> counter:getCounters().entrySet()) {
+			b.append(counter.getKey()).append(": ").append(counter.getValue()).append('\n');
+		}
+		for (Map.Entry<String,Histogram> histogram:getHistograms().entrySet()) {
+			b.append(histogram.getKey()).append(": ").append(histogram.getValue()).append('\n');
+		}
+		return b.toString();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package nz.ac.massey.jung.contrib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Utilities to split index ranges into tasks and run them on an executor.
+ * Algorithms that support parallel execution either use an executor supplied by the caller,
+ * or a shared default executor with one (daemon) thread per available processor.
+ * @author jens dietrich
+ */
+public class ParallelTasks {
+
+	private static ExecutorService defaultExecutor = null;
+
+	/**
+	 * Get the shared default executor.
+	 * @return
+	 */
+	public static synchronized ExecutorService getDefaultExecutor() {
+		if (defaultExecutor==null) {
+			defaultExecutor = Executors.newFixedThreadPool(getParallelism(),new ThreadFactory() {
+				private int counter = 0;
+				@Override
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r,"massey-jung-worker-"+(counter++));
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return defaultExecutor;
+	}
+
+	/**
+	 * Get the number of threads used by the default executor.
+	 * @return
+	 */
+	public static int getParallelism() {
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Split the range [0,size) into at most count ranges of (almost) equal size.
+	 * @param size
+	 * @param count
+	 * @return the range boundaries, range i is [boundaries[i],boundaries[i+1])
+	 */
+	public static int[] split(int size,int count) {
+		int ranges = Math.max(1,Math.min(count,size));
+		int[] boundaries = new int[ranges+1];
+		for (int i=0;i<=ranges;i++) {
+			boundaries[i] = (int)((long)size*i/ranges);
+		}
+		return boundaries;
+	}
+
+	/**
+	 * Run tasks and wait for their results. Results are returned in the order of the tasks, so that
+	 * merging results is deterministic. Exceptions thrown by tasks are rethrown.
+	 * @param executor the executor, or null to use the default executor
+	 * @param tasks
+	 * @return
+	 */
+	public static <T> List<T> invokeAll(ExecutorService executor,List<? extends Callable<T>> tasks) {
+		if (executor==null) executor = getDefaultExecutor();
+		List<T> results = new ArrayList<T>(tasks.size());
+		try {
+			for (Future<T> future:executor.invokeAll(tasks)) {
+				results.add(future.get());
+			}
+		}
+		catch (InterruptedException x) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for parallel tasks",x);
+		}
+		catch (ExecutionException x) {
+			Throwable cause = x.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new IllegalStateException("Parallel task failed",cause);
+		}
+		return results;
+	}
+}
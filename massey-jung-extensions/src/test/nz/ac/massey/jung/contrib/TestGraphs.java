@@ -0,0 +1,136 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.collections15.Transformer;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Random graphs shared by the unit tests. All graphs are generated from a seed, so tests are repeatable.
+ * @author jens dietrich
+ */
+public class TestGraphs {
+
+	/**
+	 * Random directed graph with many small components and (depending on the edge count) a large component.
+	 * End points are chosen uniformly at random, and the graph may contain loops.
+	 * @param vertexCount
+	 * @param edgeCount
+	 * @param seed
+	 * @return
+	 */
+	public static DirectedGraph<Integer,Integer> buildRandomGraph(int vertexCount,int edgeCount,long seed) {
+		return buildRandomGraph(new DirectedSparseGraph<Integer,Integer>(),vertexCount,edgeCount,seed);
+	}
+
+	/**
+	 * Add random edges to a graph, end points are chosen uniformly at random.
+	 * Depending on the graph type, this creates loops, parallel and reciprocal edges (edges the graph rejects are skipped).
+	 * @param g the graph, vertices 0..vertexCount-1 are added
+	 * @param vertexCount
+	 * @param edgeCount the number of edges drawn
+	 * @param seed
+	 * @return the graph
+	 */
+	public static <G extends Graph<Integer,Integer>> G buildRandomGraph(G g,int vertexCount,int edgeCount,long seed) {
+		Random random = new Random(seed);
+		for (int i=0;i<vertexCount;i++) {
+			g.addVertex(i);
+		}
+		for (int i=0;i<edgeCount;i++) {
+			g.addEdge(i,random.nextInt(vertexCount),random.nextInt(vertexCount));
+		}
+		return g;
+	}
+
+	/**
+	 * Random undirected graph with a fixed number of edges and planted modules, vertex v is in module v%moduleCount.
+	 * Three quarters of the edges are drawn inside modules, there are no loops or parallel edges.
+	 * @param vertexCount
+	 * @param moduleCount
+	 * @param edgeCount
+	 * @param seed
+	 * @return
+	 */
+	public static Graph<Integer,String> buildModularGraph(int vertexCount,int moduleCount,int edgeCount,long seed) {
+		Transformer<Integer,Integer> vertices = new Transformer<Integer,Integer>() {
+			@Override
+			public Integer transform(Integer v) {
+				return v;
+			}
+		};
+		return buildModularGraph(new UndirectedSparseGraph<Integer,String>(),vertices,vertexCount,moduleCount,edgeCount,seed);
+	}
+
+	/**
+	 * Add edges with planted modules to a graph, vertex v is in module v%moduleCount.
+	 * Three quarters of the edges are drawn inside modules. There are no loops, and two vertices are connected at most once
+	 * (in directed graphs, there are no parallel or reciprocal edges).
+	 * @param g the graph
+	 * @param vertices creates the vertex for each index 0..vertexCount-1, e.g. a label containing the module
+	 * @param vertexCount
+	 * @param moduleCount
+	 * @param edgeCount
+	 * @param seed
+	 * @return the graph
+	 */
+	public static <V,G extends Graph<V,String>> G buildModularGraph(G g,Transformer<Integer,V> vertices,int vertexCount,int moduleCount,int edgeCount,long seed) {
+		Random random = new Random(seed);
+		List<V> index = new ArrayList<V>(vertexCount);
+		for (int v=0;v<vertexCount;v++) {
+			index.add(vertices.transform(v));
+			g.addVertex(index.get(v));
+		}
+		while (g.getEdgeCount()<edgeCount) {
+			int v1 = random.nextInt(vertexCount);
+			int v2 = random.nextInt(4)==0?random.nextInt(vertexCount):(random.nextInt(vertexCount/moduleCount)*moduleCount+v1%moduleCount)%vertexCount;
+			if (v1!=v2 && !g.isNeighbor(index.get(v1),index.get(v2))) {
+				g.addEdge(v1+"-"+v2,index.get(v1),index.get(v2));
+			}
+		}
+		return g;
+	}
+
+	/**
+	 * Planted partition: groups of groupSize vertices, vertex v is in group v/groupSize.
+	 * Each pair of vertices is connected with probability pIn if both are in the same group, and with probability pOut otherwise.
+	 * @param groupCount
+	 * @param groupSize
+	 * @param pIn
+	 * @param pOut
+	 * @param seed
+	 * @return
+	 */
+	public static Graph<Integer,Integer> buildPlantedPartition(int groupCount,int groupSize,double pIn,double pOut,long seed) {
+		Random random = new Random(seed);
+		int vertexCount = groupSize*groupCount;
+		Graph<Integer,Integer> g = new UndirectedSparseGraph<Integer,Integer>();
+		for (int i=0;i<vertexCount;i++) {
+			g.addVertex(i);
+		}
+		int edges = 0;
+		for (int i=0;i<vertexCount;i++) {
+			for (int j=i+1;j<vertexCount;j++) {
+				double p = i/groupSize==j/groupSize?pIn:pOut;
+				if (random.nextDouble()<p) {
+					g.addEdge(edges++,i,j);
+				}
+			}
+		}
+		return g;
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.DynamicComponents;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import org.junit.Test;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Unit tests for dynamic components, results are compared with Tarjan's algorithm.
+ * @author jens dietrich
+ */
+public class DynamicComponentsTest {
+
+	private void compare(DirectedGraph<Integer,String> g,DynamicComponents<Integer> components) {
+		TarjansAlgorithm<Integer,String> alg = new TarjansAlgorithm<Integer,String>();
+		alg.buildComponentGraph(g,null);
+		assertEquals(new HashSet<Set<Integer>>(alg.getComponentMembership().values()),new HashSet<Set<Integer>>(components.getComponentMembership().values()));
+		assertEquals(alg.getComponentGraph().getVertexCount(),components.getComponentGraph().getVertexCount());
+		assertEquals(alg.getComponentGraph().getEdgeCount(),components.getComponentGraph().getEdgeCount());
+		for (String e:g.getEdges()) {
+			Set<Integer> source = components.getComponentMembership().get(g.getSource(e));
+			Set<Integer> target = components.getComponentMembership().get(g.getDest(e));
+			assertTrue(source==target || components.getComponentGraph().isSuccessor(source,target));
+		}
+	}
+
+	@Test
+	public void testMergeAndSplit() throws Exception {
+		DirectedGraph<Integer,String> g = new DirectedSparseGraph<Integer,String>();
+		g.addEdge("1-2",1,2);
+		g.addEdge("2-3",2,3);
+		g.addEdge("3-4",3,4);
+		DynamicComponents<Integer> components = new DynamicComponents<Integer>(g);
+		assertEquals(4,components.getComponentCount());
+		assertEquals(3,components.getComponentGraph().getEdgeCount());
+
+		// closing the cycle merges all components
+		components.addEdge(4,1);
+		assertEquals(1,components.getComponentCount());
+		assertEquals(0,components.getComponentGraph().getEdgeCount());
+
+		// breaking the cycle splits the component again
+		assertTrue(components.removeEdge(2,3));
+		assertEquals(4,components.getComponentCount());
+		assertEquals(3,components.getComponentGraph().getEdgeCount());
+		assertFalse(components.removeEdge(2,3));
+	}
+
+	@Test
+	public void testParallelEdges() throws Exception {
+		DirectedGraph<Integer,String> g = new DirectedSparseGraph<Integer,String>();
+		g.addEdge("1-2",1,2);
+		g.addEdge("2-1",2,1);
+		g.addEdge("2-3",2,3);
+		DynamicComponents<Integer> components = new DynamicComponents<Integer>(g);
+		Set<Integer> component = components.getComponentMembership().get(1);
+		components.addEdge(1,2);
+		components.addEdge(2,3);
+
+		// a parallel edge remains, the component is not recomputed
+		assertTrue(components.removeEdge(1,2));
+		assertSame(component,components.getComponentMembership().get(1));
+		assertTrue(components.removeEdge(2,3));
+		assertEquals(1,components.getComponentGraph().getEdgeCount());
+
+		// removing the last edge splits the component
+		assertTrue(components.removeEdge(1,2));
+		assertEquals(3,components.getComponentCount());
+		assertEquals(2,components.getComponentGraph().getEdgeCount());
+		assertFalse(components.removeEdge(1,2));
+	}
+
+	@Test
+	public void testRandomUpdates() throws Exception {
+		Random random = new Random(42);
+		int size = 40;
+		DirectedGraph<Integer,String> g = new DirectedSparseGraph<Integer,String>();
+		for (int i=0;i<size;i++) {
+			g.addVertex(i);
+		}
+		for (int i=0;i<40;i++) {
+			int v1 = random.nextInt(size);
+			int v2 = random.nextInt(size);
+			g.addEdge(v1+"-"+v2,v1,v2);
+		}
+		DynamicComponents<Integer> components = new DynamicComponents<Integer>(g);
+		compare(g,components);
+
+		for (int i=0;i<500;i++) {
+			int v1 = random.nextInt(size);
+			int v2 = random.nextInt(size);
+			String e = v1+"-"+v2;
+			if (g.containsEdge(e)) {
+				g.removeEdge(e);
+				assertTrue(components.removeEdge(v1,v2));
+			}
+			else {
+				g.addEdge(e,v1,v2);
+				components.addEdge(v1,v2);
+			}
+			compare(g,components);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.ForwardBackwardAlgorithm;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjanClusterer;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Unit tests for the parallel forward-backward algorithm, results are compared with Tarjan's algorithm.
+ * @author jens dietrich
+ */
+public class ForwardBackwardAlgorithmTest {
+
+	private void compare(DirectedGraph<Integer,Integer> g) {
+		TarjansAlgorithm<Integer,Integer> tarjan = new TarjansAlgorithm<Integer,Integer>(true);
+		tarjan.buildComponentGraph(g,null);
+		ForwardBackwardAlgorithm<Integer,Integer> alg = new ForwardBackwardAlgorithm<Integer,Integer>(null,true);
+		alg.buildComponentGraph(g,null);
+
+		assertEquals(new HashSet<Set<Integer>>(tarjan.getComponentMembership().values()),new HashSet<Set<Integer>>(alg.getComponentMembership().values()));
+		assertEquals(tarjan.getCondensation().getComponentCount(),alg.getCondensation().getComponentCount());
+		assertEquals(tarjan.getCondensation().getEdgeCount(),alg.getCondensation().getEdgeCount());
+		DirectedGraph<Set<Integer>,Integer> componentGraph = alg.getComponentGraph();
+		for (Integer e:tarjan.getComponentGraph().getEdges()) {
+			Set<Integer> source = alg.getComponentMembership().get(tarjan.getComponentGraph().getSource(e).iterator().next());
+			Set<Integer> target = alg.getComponentMembership().get(tarjan.getComponentGraph().getDest(e).iterator().next());
+			assertTrue(componentGraph.isSuccessor(source,target));
+		}
+	}
+
+	@Test
+	public void testSmallGraph() throws Exception {
+		compare(TestGraphs.buildRandomGraph(200,250,42));
+	}
+
+	/**
+	 * Large enough for the forward and backward searches to run as separate tasks.
+	 */
+	@Test
+	public void testLargeGraph() throws Exception {
+		compare(TestGraphs.buildRandomGraph(20000,30000,42));
+	}
+
+	/**
+	 * Vertices of the previous graph must not be reported when an instance is reused.
+	 */
+	@Test
+	public void testReuse() throws Exception {
+		ForwardBackwardAlgorithm<Integer,Integer> alg = new ForwardBackwardAlgorithm<Integer,Integer>();
+		alg.buildComponentGraph(TestGraphs.buildRandomGraph(200,250,42),null);
+		DirectedGraph<Integer,Integer> g = TestGraphs.buildRandomGraph(50,60,7);
+		alg.buildComponentGraph(g,null);
+		assertEquals(g.getVertexCount(),alg.getComponentMembership().size());
+		TarjansAlgorithm<Integer,Integer> tarjan = new TarjansAlgorithm<Integer,Integer>();
+		tarjan.buildComponentGraph(g,null);
+		assertEquals(new HashSet<Set<Integer>>(tarjan.getComponentMembership().values()),new HashSet<Set<Integer>>(alg.getComponentMembership().values()));
+	}
+
+	@Test
+	public void testChain() throws Exception {
+		DirectedGraph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		int size = 100000;
+		for (int i=0;i<size-1;i++) {
+			g.addEdge(i,i,i+1);
+		}
+		Set<Set<Integer>> components = new TarjanClusterer<Integer,Integer>(true).transform(g);
+		assertEquals(size,components.size());
+		// close the cycle
+		g.addEdge(size-1,size-1,0);
+		components = new TarjanClusterer<Integer,Integer>(true).transform(g);
+		assertEquals(1,components.size());
+	}
+
+}
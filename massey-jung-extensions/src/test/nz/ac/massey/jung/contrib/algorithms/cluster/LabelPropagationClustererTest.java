@@ -0,0 +1,78 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.LabelPropagationClusterer;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Unit tests for the label propagation clusterer.
+ * @author jens dietrich
+ */
+public class LabelPropagationClustererTest {
+
+	@Test
+	public void testPlantedPartition() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(10,20,0.5,0.002,42);
+		LabelPropagationClusterer<Integer,Integer> clusterer = new LabelPropagationClusterer<Integer,Integer>();
+		Set<Set<Integer>> clusters = clusterer.transform(g);
+		assertTrue(clusterer.isConverged());
+		assertEquals(10,clusters.size());
+		for (Set<Integer> cluster:clusters) {
+			int group = cluster.iterator().next()/20;
+			for (Integer v:cluster) {
+				assertEquals(group,v/20);
+			}
+		}
+	}
+
+	@Test
+	public void testIsolatedVertices() throws Exception {
+		Graph<Integer,Integer> g = new UndirectedSparseGraph<Integer,Integer>();
+		g.addVertex(1);
+		g.addVertex(2);
+		g.addEdge(1,3,4);
+		Set<Set<Integer>> clusters = new LabelPropagationClusterer<Integer,Integer>().transform(g);
+		assertEquals(3,clusters.size());
+	}
+
+	@Test
+	public void testDenseIds() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(5,20,0.5,0.01,7);
+		int[] ids = new LabelPropagationClusterer<Integer,Integer>().cluster(new CompactGraph<Integer,Integer>(g));
+		int max = -1;
+		for (int id:ids) {
+			// ids are numbered in order of first occurrence
+			assertTrue(id<=max+1);
+			max = Math.max(max,id);
+		}
+	}
+
+	/**
+	 * The parallel path must produce the same labels as the sequential path.
+	 */
+	@Test
+	public void testParallel() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(50,20,0.3,0.001,11);
+		CompactGraph<Integer,Integer> snapshot = new CompactGraph<Integer,Integer>(g);
+		LabelPropagationClusterer<Integer,Integer> sequential = new LabelPropagationClusterer<Integer,Integer>();
+		sequential.setThreshold(Integer.MAX_VALUE);
+		LabelPropagationClusterer<Integer,Integer> parallel = new LabelPropagationClusterer<Integer,Integer>();
+		parallel.setThreshold(0);
+		assertArrayEquals(sequential.cluster(snapshot),parallel.cluster(snapshot));
+		assertEquals(sequential.getIterations(),parallel.getIterations());
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.LeadingEigenvectorClusterer;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Unit tests for the leading eigenvector clusterer.
+ * @author jens dietrich
+ */
+public class LeadingEigenvectorClustererTest {
+
+	/**
+	 * Cliques connected in a ring by single edges.
+	 */
+	private Graph<Integer,String> buildCliqueRing(int cliqueCount,int cliqueSize) {
+		Graph<Integer,String> g = new UndirectedSparseGraph<Integer,String>();
+		for (int c=0;c<cliqueCount;c++) {
+			for (int i=0;i<cliqueSize;i++) {
+				for (int j=i+1;j<cliqueSize;j++) {
+					int v1 = c*cliqueSize+i;
+					int v2 = c*cliqueSize+j;
+					g.addEdge(v1+"-"+v2,v1,v2);
+				}
+			}
+			int v = c*cliqueSize;
+			int w = ((c+1)%cliqueCount)*cliqueSize+1;
+			g.addEdge(v+"-"+w,v,w);
+		}
+		return g;
+	}
+
+	private double modularity(Graph<Integer,String> g,Set<Set<Integer>> clusters) {
+		final Map<Integer,Set<Integer>> membership = new HashMap<Integer,Set<Integer>>();
+		for (Set<Integer> cluster:clusters) {
+			for (Integer v:cluster) {
+				membership.put(v,cluster);
+			}
+		}
+		return Modularity.computeModularity(g,new Transformer<Integer,Set<Integer>>() {
+			@Override
+			public Set<Integer> transform(Integer v) {
+				return membership.get(v);
+			}
+		});
+	}
+
+	@Test
+	public void testCliqueRing() throws Exception {
+		Graph<Integer,String> g = buildCliqueRing(4,6);
+		LeadingEigenvectorClusterer<Integer,String> clusterer = new LeadingEigenvectorClusterer<Integer,String>();
+		Set<Set<Integer>> clusters = clusterer.transform(g);
+		assertEquals(4,clusters.size());
+		for (Set<Integer> cluster:clusters) {
+			assertEquals(6,cluster.size());
+		}
+		assertEquals(modularity(g,clusters),clusterer.getModularity(),1e-9);
+	}
+
+	@Test
+	public void testPlantedPartition() throws Exception {
+		Graph<Integer,String> g = TestGraphs.buildModularGraph(1000,5,5000,42);
+		LeadingEigenvectorClusterer<Integer,String> clusterer = new LeadingEigenvectorClusterer<Integer,String>();
+		Set<Set<Integer>> clusters = clusterer.transform(g);
+		double modularity = modularity(g,clusters);
+		assertEquals(modularity,clusterer.getModularity(),1e-9);
+		assertTrue(modularity>0.4);
+	}
+
+	/**
+	 * The parallel path must produce the same result as the sequential path.
+	 */
+	@Test
+	public void testParallel() throws Exception {
+		Graph<Integer,String> g = TestGraphs.buildModularGraph(20000,8,100000,7);
+		CompactGraph<Integer,String> snapshot = new CompactGraph<Integer,String>(g);
+		LeadingEigenvectorClusterer<Integer,String> sequential = new LeadingEigenvectorClusterer<Integer,String>();
+		sequential.setThreshold(Integer.MAX_VALUE);
+		LeadingEigenvectorClusterer<Integer,String> parallel = new LeadingEigenvectorClusterer<Integer,String>();
+		parallel.setThreshold(0);
+		assertArrayEquals(sequential.cluster(snapshot),parallel.cluster(snapshot));
+		assertEquals(sequential.getModularity(),parallel.getModularity(),0);
+	}
+
+	@Test
+	public void testNoEdges() throws Exception {
+		Graph<Integer,String> g = new UndirectedSparseGraph<Integer,String>();
+		for (int v=0;v<5;v++) {
+			g.addVertex(v);
+		}
+		assertEquals(1,new LeadingEigenvectorClusterer<Integer,String>().transform(g).size());
+	}
+}
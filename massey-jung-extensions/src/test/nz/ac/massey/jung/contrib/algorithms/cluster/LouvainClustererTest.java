@@ -0,0 +1,103 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.LouvainClusterer;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Unit tests for the Louvain clusterer.
+ * @author jens dietrich
+ */
+public class LouvainClustererTest {
+
+	private <V> Transformer<V,Set<V>> toMembership(Set<Set<V>> clusters) {
+		final Map<V,Set<V>> membership = new HashMap<V,Set<V>>();
+		for (Set<V> cluster:clusters) {
+			for (V v:cluster) {
+				membership.put(v,cluster);
+			}
+		}
+		return new Transformer<V,Set<V>>() {
+			@Override
+			public Set<V> transform(V v) {
+				return membership.get(v);
+			}
+		};
+	}
+
+	/**
+	 * Two triangles connected by one edge.
+	 */
+	@Test
+	public void testTwoTriangles() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		g.addEdge("c1.e12","c1.v1","c1.v2");
+		g.addEdge("c1.e23","c1.v2","c1.v3");
+		g.addEdge("c1.e31","c1.v3","c1.v1");
+		g.addEdge("c2.e12","c2.v1","c2.v2");
+		g.addEdge("c2.e23","c2.v2","c2.v3");
+		g.addEdge("c2.e31","c2.v3","c2.v1");
+		g.addEdge("e12","c1.v1","c2.v1");
+
+		LouvainClusterer<String,String> clusterer = new LouvainClusterer<String,String>();
+		Set<Set<String>> clusters = clusterer.transform(g);
+		assertEquals(2,clusters.size());
+		for (Set<String> cluster:clusters) {
+			assertEquals(3,cluster.size());
+		}
+		assertEquals(5.0/14.0,clusterer.getModularity(),1e-9);
+	}
+
+	/**
+	 * Planted partition: 10 groups of 20 vertices, dense inside groups and sparse between groups.
+	 */
+	@Test
+	public void testPlantedPartition() throws Exception {
+		Random random = new Random(42);
+		Graph<Integer,Integer> g = new UndirectedSparseGraph<Integer,Integer>();
+		for (int i=0;i<200;i++) {
+			g.addVertex(i);
+		}
+		int edges = 0;
+		for (int i=0;i<200;i++) {
+			for (int j=i+1;j<200;j++) {
+				double p = i/20==j/20?0.5:0.005;
+				if (random.nextDouble()<p) {
+					g.addEdge(edges++,i,j);
+				}
+			}
+		}
+
+		LouvainClusterer<Integer,Integer> clusterer = new LouvainClusterer<Integer,Integer>();
+		Set<Set<Integer>> clusters = clusterer.transform(g);
+		assertEquals(10,clusters.size());
+
+		// the reported modularity is the modularity of the computed clusters
+		double modularity = Modularity.computeModularity(g,toMembership(clusters));
+		assertEquals(modularity,clusterer.getModularity(),1e-9);
+
+		// modularity does not decrease between levels
+		List<Double> levels = clusterer.getLevelModularities();
+		for (int i=1;i<levels.size();i++) {
+			assertTrue(levels.get(i)>=levels.get(i-1));
+		}
+	}
+}
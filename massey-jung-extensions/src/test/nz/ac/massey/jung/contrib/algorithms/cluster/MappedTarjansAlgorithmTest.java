@@ -0,0 +1,94 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.MappedTarjansAlgorithm;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.io.GraphFiles;
+import nz.ac.massey.jung.contrib.io.MappedIntArray;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.DirectedGraph;
+
+/**
+ * Unit tests for Tarjan's algorithm on graphs stored on disk, results are compared with Tarjan's algorithm.
+ * @author jens dietrich
+ */
+public class MappedTarjansAlgorithmTest {
+
+	private File createTempFile(String suffix) throws Exception {
+		File file = File.createTempFile("graph",suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	private Set<Set<Integer>> readComponents(CompactGraph<Integer,Integer> g,File componentFile,int componentCount) throws Exception {
+		RandomAccessFile in = new RandomAccessFile(componentFile,"r");
+		try {
+			MappedIntArray componentIds = new MappedIntArray(in.getChannel(),FileChannel.MapMode.READ_ONLY,0,g.getVertexCount());
+			Map<Integer,Set<Integer>> components = new HashMap<Integer,Set<Integer>>();
+			for (int v=0;v<g.getVertexCount();v++) {
+				int id = componentIds.get(v);
+				assertTrue(id>=0 && id<componentCount);
+				Set<Integer> component = components.get(id);
+				if (component==null) {
+					component = new HashSet<Integer>();
+					components.put(id,component);
+				}
+				component.add(g.getVertex(v));
+			}
+			return new HashSet<Set<Integer>>(components.values());
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testCsrFile() throws Exception {
+		DirectedGraph<Integer,Integer> g = TestGraphs.buildRandomGraph(300,400,42);
+		CompactGraph<Integer,Integer> snapshot = new CompactGraph<Integer,Integer>(g);
+		File csrFile = createTempFile(".csr");
+		File componentFile = createTempFile(".ids");
+		GraphFiles.writeCsr(snapshot,csrFile);
+		int componentCount = new MappedTarjansAlgorithm().computeComponents(csrFile,componentFile);
+
+		TarjansAlgorithm<Integer,Integer> alg = new TarjansAlgorithm<Integer,Integer>();
+		alg.buildComponentGraph(g,null);
+		assertEquals(alg.getCondensation().getComponentCount(),componentCount);
+		assertEquals(new HashSet<Set<Integer>>(alg.getComponentMembership().values()),readComponents(snapshot,componentFile,componentCount));
+	}
+
+	@Test
+	public void testEdgeList() throws Exception {
+		DirectedGraph<Integer,Integer> g = TestGraphs.buildRandomGraph(300,400,43);
+		CompactGraph<Integer,Integer> snapshot = new CompactGraph<Integer,Integer>(g);
+		File edgeList = createTempFile(".edges");
+		File csrFile = createTempFile(".csr");
+		File componentFile = createTempFile(".ids");
+		GraphFiles.writeEdgeList(snapshot,edgeList);
+		int componentCount = new MappedTarjansAlgorithm().computeComponentsFromEdgeList(edgeList,csrFile,componentFile);
+
+		TarjansAlgorithm<Integer,Integer> alg = new TarjansAlgorithm<Integer,Integer>();
+		alg.buildComponentGraph(g,null);
+		assertEquals(alg.getCondensation().getComponentCount(),componentCount);
+		assertEquals(new HashSet<Set<Integer>>(alg.getComponentMembership().values()),readComponents(snapshot,componentFile,componentCount));
+	}
+
+}
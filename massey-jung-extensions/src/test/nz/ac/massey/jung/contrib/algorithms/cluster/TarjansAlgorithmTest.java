@@ -0,0 +1,169 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import nz.ac.massey.jung.contrib.algorithms.cluster.Condensation;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjanClusterer;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Predicate;
+import org.junit.Test;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Unit tests for Tarjan's algorithm.
+ * @author jens dietrich
+ */
+public class TarjansAlgorithmTest {
+
+	/**
+	 * Two cycles connected by one edge, and one isolated vertex.
+	 */
+	private DirectedGraph<String,String> buildGraph() {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		g.addEdge("a1-a2","a1","a2");
+		g.addEdge("a2-a3","a2","a3");
+		g.addEdge("a3-a1","a3","a1");
+		g.addEdge("b1-b2","b1","b2");
+		g.addEdge("b2-b1","b2","b1");
+		g.addEdge("a1-b1","a1","b1");
+		g.addVertex("c1");
+		return g;
+	}
+
+	@Test
+	public void testComponents() throws Exception {
+		DirectedGraph<String,String> g = buildGraph();
+		TarjansAlgorithm<String,String> alg = new TarjansAlgorithm<String,String>();
+		alg.buildComponentGraph(g,null);
+		assertEquals(3,alg.getComponentGraph().getVertexCount());
+		assertSame(alg.getComponentMembership().get("a1"),alg.getComponentMembership().get("a3"));
+		assertEquals(3,alg.getComponentMembership().get("a2").size());
+		assertEquals(2,alg.getComponentMembership().get("b2").size());
+		assertEquals(1,alg.getComponentMembership().get("c1").size());
+		assertTrue(alg.getComponentGraph().isSuccessor(alg.getComponentMembership().get("a1"),alg.getComponentMembership().get("b1")));
+	}
+
+	@Test
+	public void testEdgeFilter() throws Exception {
+		DirectedGraph<String,String> g = buildGraph();
+		TarjansAlgorithm<String,String> alg = new TarjansAlgorithm<String,String>();
+		// removing one edge breaks the first cycle
+		alg.buildComponentGraph(g,new Predicate<String>() {
+			@Override
+			public boolean evaluate(String e) {
+				return !e.equals("a3-a1");
+			}
+		});
+		assertEquals(5,alg.getComponentGraph().getVertexCount());
+		assertEquals(1,alg.getComponentMembership().get("a1").size());
+		assertEquals(2,alg.getComponentMembership().get("b1").size());
+	}
+
+	@Test
+	public void testCompactGraph() throws Exception {
+		DirectedGraph<String,String> g = buildGraph();
+		TarjansAlgorithm<String,String> alg = new TarjansAlgorithm<String,String>();
+		alg.buildComponentGraph(new CompactGraph<String,String>(g));
+		assertEquals(3,alg.getComponentGraph().getVertexCount());
+		assertSame(alg.getComponentMembership().get("a1"),alg.getComponentMembership().get("a3"));
+		assertEquals(3,alg.getComponentMembership().get("a2").size());
+		assertEquals(2,alg.getComponentMembership().get("b2").size());
+		assertEquals(1,alg.getComponentMembership().get("c1").size());
+		assertTrue(alg.getComponentGraph().isSuccessor(alg.getComponentMembership().get("a1"),alg.getComponentMembership().get("b1")));
+	}
+
+	@Test
+	public void testCondensation() throws Exception {
+		DirectedGraph<String,String> g = buildGraph();
+		// a second edge between the two cycles
+		g.addEdge("a2-b2","a2","b2");
+		TarjansAlgorithm<String,String> alg = new TarjansAlgorithm<String,String>(true);
+		alg.buildComponentGraph(g,null);
+		Condensation<String> condensation = alg.getCondensation();
+		assertEquals(3,condensation.getComponentCount());
+		// edges within components are dropped, parallel edges merged
+		assertEquals(1,condensation.getEdgeCount());
+		assertEquals(2,condensation.getMultiplicities()[0]);
+		assertSame(alg.getComponentMembership().get("b1"),condensation.getComponent(condensation.getTargets()[0]));
+		assertEquals(1,alg.getComponentGraph().getEdgeCount());
+		assertTrue(alg.getComponentGraph().isSuccessor(alg.getComponentMembership().get("a1"),alg.getComponentMembership().get("b1")));
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		DirectedGraph<String,String> g = buildGraph();
+		TarjansAlgorithm<String,String> alg = new TarjansAlgorithm<String,String>();
+		alg.buildComponentGraph(g,new Predicate<String>() {
+			@Override
+			public boolean evaluate(String e) {
+				return !e.equals("a3-a1");
+			}
+		});
+		assertEquals(5,alg.getCondensation().getComponentCount());
+		// the filter of the previous run is not used
+		alg.buildComponentGraph(g,null);
+		assertEquals(3,alg.getCondensation().getComponentCount());
+		assertEquals(3,alg.getComponentMembership().get("a2").size());
+		alg.buildComponentGraph(new CompactGraph<String,String>(g));
+		assertEquals(3,alg.getCondensation().getComponentCount());
+		assertEquals(1,alg.getCondensation().getEdgeCount());
+		alg.reset();
+		assertTrue(alg.getComponentMembership().isEmpty());
+		assertNull(alg.getCondensation());
+	}
+
+	/**
+	 * Concurrent calls borrow different instances of TarjansAlgorithm from the pool, so a clusterer can be shared.
+	 */
+	@Test
+	public void testSharedClusterer() throws Exception {
+		final TarjanClusterer<String,String> clusterer = new TarjanClusterer<String,String>();
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int i=0;i<threads.length;i++) {
+			final DirectedGraph<String,String> g = buildGraph();
+			if (i%2==1) g.addEdge("b1-a1","b1","a1");
+			final int expected = i%2==1?2:3;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j=0;j<1000;j++) {
+						if (clusterer.transform(g).size()!=expected) failures.incrementAndGet();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread:threads) {
+			thread.join();
+		}
+		assertEquals(0,failures.get());
+	}
+
+	/**
+	 * A long chain, this would overflow the stack with a recursive implementation.
+	 */
+	@Test
+	public void testDeepGraph() throws Exception {
+		DirectedGraph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		int size = 100000;
+		for (int i=0;i<size-1;i++) {
+			g.addEdge(i,i,i+1);
+		}
+		Set<Set<Integer>> components = new TarjanClusterer<Integer,Integer>().transform(g);
+		assertEquals(size,components.size());
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.cluster;
+
+import static org.junit.Assert.*;
+import java.util.HashSet;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.UnionFindComponents;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import org.apache.commons.collections15.Predicate;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.algorithms.cluster.WeakComponentClusterer;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Unit tests for the union-find weak components, results are compared with the jung WeakComponentClusterer.
+ * @author jens dietrich
+ */
+public class UnionFindComponentsTest {
+
+	private void compare(DirectedGraph<Integer,Integer> g,int threshold) {
+		UnionFindComponents<Integer,Integer> alg = new UnionFindComponents<Integer,Integer>(null,threshold);
+		alg.buildComponents(g,null);
+		Set<Set<Integer>> expected = new WeakComponentClusterer<Integer,Integer>().transform(g);
+		assertEquals(expected,new HashSet<Set<Integer>>(alg.getComponentMembership().values()));
+		assertEquals(expected.size(),alg.getComponentCount());
+	}
+
+	@Test
+	public void testSequential() throws Exception {
+		compare(TestGraphs.buildRandomGraph(1000,600,42),Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		compare(TestGraphs.buildRandomGraph(100000,80000,42),0);
+	}
+
+	@Test
+	public void testComponentIds() throws Exception {
+		DirectedGraph<Integer,Integer> g = TestGraphs.buildRandomGraph(10000,8000,7);
+		UnionFindComponents<Integer,Integer> sequential = new UnionFindComponents<Integer,Integer>(null,Integer.MAX_VALUE);
+		sequential.buildComponents(g,null);
+		UnionFindComponents<Integer,Integer> parallel = new UnionFindComponents<Integer,Integer>(null,0);
+		parallel.buildComponents(g,null);
+		// ids do not depend on the order in which edges are processed
+		assertArrayEquals(sequential.getComponentIds(),parallel.getComponentIds());
+	}
+
+	/**
+	 * A path 0-1-2-3-4, the filter removes the edge 2-3.
+	 */
+	@Test
+	public void testFilter() throws Exception {
+		DirectedGraph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		for (int i=0;i<4;i++) {
+			g.addEdge(i,i,i+1);
+		}
+		Predicate<Integer> filter = new Predicate<Integer>() {
+			@Override
+			public boolean evaluate(Integer e) {
+				return e!=2;
+			}
+		};
+		UnionFindComponents<Integer,Integer> alg = new UnionFindComponents<Integer,Integer>(null,0);
+		alg.buildComponents(g,filter);
+		assertEquals(2,alg.getComponentCount());
+		assertEquals(3,alg.getComponentMembership().get(0).size());
+		assertEquals(2,alg.getComponentMembership().get(4).size());
+		assertTrue(alg.getComponentMembership().get(4).contains(3));
+		// snapshots are filtered while the edges are merged
+		alg.buildComponents(new CompactGraph<Integer,Integer>(g),filter);
+		assertEquals(2,alg.getComponentCount());
+		assertEquals(5,alg.getComponentMembership().size());
+		assertEquals(2,alg.getComponentMembership().get(4).size());
+	}
+}
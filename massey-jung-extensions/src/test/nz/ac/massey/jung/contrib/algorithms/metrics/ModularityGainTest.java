@@ -0,0 +1,115 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularityGain;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.DirectedSparseMultigraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseMultigraph;
+
+/**
+ * Unit tests for modularity gains, gains are compared with the difference of the modularity recomputed before and after the move.
+ * @author jens dietrich
+ */
+public class ModularityGainTest {
+
+	static double DELTA = 1e-9;
+
+	private Transformer<Integer,String> membership(final Map<Integer,String> modules) {
+		return new Transformer<Integer,String>() {
+			@Override
+			public String transform(Integer v) {
+				return modules.containsKey(v)?modules.get(v):"c"+(v%5);
+			}
+		};
+	}
+
+	private void testGains(Graph<Integer,Integer> g) {
+		Random random = new Random(42);
+		Map<Integer,String> none = new HashMap<Integer,String>();
+		double modularity = Modularity.computeModularity(g,membership(none),Modularity.Mode.UNDIRECTED);
+		ModularityGain<Integer,String> gains = new ModularityGain<Integer,String>(g,membership(none));
+		assertEquals(modularity,gains.getModularity(),DELTA);
+
+		// single moves, including moves to new modules
+		for (int i=0;i<50;i++) {
+			int v = random.nextInt(g.getVertexCount());
+			String module = "c"+random.nextInt(6);
+			Map<Integer,String> moves = new HashMap<Integer,String>();
+			moves.put(v,module);
+			double expected = Modularity.computeModularity(g,membership(moves),Modularity.Mode.UNDIRECTED)-modularity;
+			assertEquals(expected,gains.computeGain(v,module),DELTA);
+			assertEquals(expected,gains.computeGain(moves),DELTA);
+		}
+
+		// batches
+		for (int i=0;i<50;i++) {
+			Map<Integer,String> moves = new HashMap<Integer,String>();
+			for (int j=0;j<10;j++) {
+				moves.put(random.nextInt(g.getVertexCount()),"c"+random.nextInt(7));
+			}
+			double expected = Modularity.computeModularity(g,membership(moves),Modularity.Mode.UNDIRECTED)-modularity;
+			assertEquals(expected,gains.computeGain(moves),DELTA);
+		}
+		// the instance is not changed by queries
+		assertEquals(modularity,gains.getModularity(),DELTA);
+		assertEquals("c3",gains.getModule(3));
+	}
+
+	@Test
+	public void testUndirected() throws Exception {
+		testGains(TestGraphs.buildRandomGraph(new UndirectedSparseMultigraph<Integer,Integer>(),100,300,42));
+	}
+
+	@Test
+	public void testDirected() throws Exception {
+		testGains(TestGraphs.buildRandomGraph(new DirectedSparseMultigraph<Integer,Integer>(),100,300,42));
+	}
+
+	@Test
+	public void testRankMoves() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildRandomGraph(new UndirectedSparseMultigraph<Integer,Integer>(),20000,100000,42);
+		Map<Integer,String> none = new HashMap<Integer,String>();
+		ModularityGain<Integer,String> gains = new ModularityGain<Integer,String>(g,membership(none));
+		List<ModularityGain.Move<Integer,String>> moves = gains.rankMoves(10);
+		assertEquals(10,moves.size());
+		for (int i=1;i<moves.size();i++) {
+			assertTrue(moves.get(i-1).getGain()>=moves.get(i).getGain());
+		}
+		for (ModularityGain.Move<Integer,String> move:moves) {
+			assertEquals(gains.computeGain(move.getVertex(),move.getModule()),move.getGain(),DELTA);
+		}
+
+		// brute force: the best move to the module of a neighbour
+		double best = Double.NEGATIVE_INFINITY;
+		for (Integer v:g.getVertices()) {
+			List<String> candidates = new ArrayList<String>();
+			for (Integer w:g.getNeighbors(v)) {
+				candidates.add("c"+(w%5));
+			}
+			for (String module:candidates) {
+				if (!module.equals(gains.getModule(v))) {
+					best = Math.max(best,gains.computeGain(v,module));
+				}
+			}
+		}
+		assertEquals(best,moves.get(0).getGain(),DELTA);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularitySignificance;
+import nz.ac.massey.jung.contrib.algorithms.metrics.SignificanceReport;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Unit tests for the significance of modularity.
+ * @author jens dietrich
+ */
+public class ModularitySignificanceTest {
+
+	Transformer<Integer,Integer> groupMembership = new Transformer<Integer,Integer>() {
+		@Override
+		public Integer transform(Integer v) {
+			return v/20;
+		}
+	};
+
+	@Test
+	public void testConfigurationModel() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(10,20,0.3,0.01,42);
+		SignificanceReport report = new ModularitySignificance(null,ModularitySignificance.NullModel.CONFIGURATION,500).computeSignificance(g,groupMembership);
+		assertEquals(Modularity.computeModularity(g,groupMembership),report.getModularity(),1e-9);
+		assertEquals(500,report.getSampleCount());
+		assertTrue(report.getZScore()>10);
+		assertEquals(1.0/501,report.getPValue(),1e-12);
+
+		// expected modularity of the configuration model: stubs of module c are matched with probability (d_c-1)/(2m-1)
+		double m2 = 2.0*g.getEdgeCount();
+		Map<Integer,Double> degrees = new HashMap<Integer,Double>();
+		for (Integer v:g.getVertices()) {
+			Integer c = groupMembership.transform(v);
+			degrees.put(c,(degrees.containsKey(c)?degrees.get(c):0)+g.degree(v));
+		}
+		double expected = 0;
+		for (double d:degrees.values()) {
+			expected = expected + d*(d-1)/(m2*(m2-1)) - (d/m2)*(d/m2);
+		}
+		assertEquals(expected,report.getMean(),4*report.getStandardDeviation()/Math.sqrt(500));
+	}
+
+	/**
+	 * The observed modularity counts every edge, like Modularity.computeModularity.
+	 */
+	@Test
+	public void testReciprocalEdges() throws Exception {
+		Graph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		g.addEdge(1,0,1);
+		g.addEdge(2,1,0);
+		g.addEdge(3,20,21);
+		g.addEdge(4,0,20);
+		SignificanceReport report = new ModularitySignificance(null,ModularitySignificance.NullModel.CONFIGURATION,10).computeSignificance(g,groupMembership);
+		assertEquals(0.21875,report.getModularity(),1e-9);
+		assertEquals(Modularity.computeModularity(g,groupMembership),report.getModularity(),1e-9);
+	}
+
+	@Test
+	public void testEdgeSwaps() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(10,20,0.3,0.01,7);
+		SignificanceReport report = new ModularitySignificance(null,ModularitySignificance.NullModel.EDGE_SWAP,200).computeSignificance(g,groupMembership);
+		assertTrue(report.getZScore()>10);
+		assertEquals(1.0/201,report.getPValue(),1e-12);
+		assertTrue(Math.abs(report.getMean())<0.1);
+	}
+
+	/**
+	 * A membership that is not related to the structure of the graph is not significant.
+	 */
+	@Test
+	public void testRandomMembership() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(10,20,0.3,0.01,11);
+		Transformer<Integer,Integer> randomMembership = new Transformer<Integer,Integer>() {
+			@Override
+			public Integer transform(Integer v) {
+				return (v*7919)%10;
+			}
+		};
+		SignificanceReport report = new ModularitySignificance(null,ModularitySignificance.NullModel.EDGE_SWAP,200).computeSignificance(g,randomMembership);
+		assertTrue(Math.abs(report.getZScore())<4);
+		assertTrue(report.getPValue()>0.001);
+	}
+
+	/**
+	 * Samples do not depend on the number of threads.
+	 */
+	@Test
+	public void testReproducible() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildPlantedPartition(10,20,0.3,0.01,3);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			for (ModularitySignificance.NullModel model:ModularitySignificance.NullModel.values()) {
+				double[] samples1 = new ModularitySignificance(executor,model,50).computeSignificance(g,groupMembership).getSamples();
+				double[] samples2 = new ModularitySignificance(null,model,50).computeSignificance(g,groupMembership).getSamples();
+				assertEquals(samples1.length,samples2.length);
+				for (int i=0;i<samples1.length;i++) {
+					assertEquals(samples1[i],samples2[i],0);
+				}
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
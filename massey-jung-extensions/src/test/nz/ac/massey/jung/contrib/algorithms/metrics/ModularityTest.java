@@ -11,16 +11,26 @@
 package test.nz.ac.massey.jung.contrib.algorithms.metrics;
 
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import nz.ac.massey.jung.contrib.algorithms.metrics.CachedMembership;
 import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularityReport;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ParallelModularity;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
 
 import org.apache.commons.collections15.Predicate;
 import org.apache.commons.collections15.Transformer;
 import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
 
 import edu.uci.ics.jung.graph.DirectedGraph;
 import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.DirectedSparseMultigraph;
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+import edu.uci.ics.jung.graph.UndirectedSparseMultigraph;
 /**
  * Unit tests for modularity metrics.
  * @author jens dietrich
@@ -36,6 +46,14 @@ public class ModularityTest {
 		}
 	};
 	
+	// labels of the vertices of random graphs, the component is the first token
+	Transformer<Integer,String> componentLabels = new Transformer<Integer,String>() {
+		@Override
+		public String transform(Integer v) {
+			return "c"+(v%5)+".v"+v;
+		}
+	};
+	
 	Predicate<String> isInModule1 = new Predicate<String> () {
 		@Override
 		public boolean evaluate(String s) {
@@ -698,4 +716,447 @@ public class ModularityTest {
 		assertEquals(0.0,computed,DELTA);
 	}
 	
+	/**
+	 * Reference implementation: the pairwise sum from Newman's paper, O(|V|^2).
+	 */
+	private static <V,E,M> double computePairwiseModularity(Graph<V,E> g,Transformer<V,M> moduleMembership) {
+		return computePairwiseModularity(g,moduleMembership,1.0);
+	}
+	
+	/**
+	 * Reference implementation with a resolution parameter, the expected number of edges is multiplied by gamma.
+	 */
+	private static <V,E,M> double computePairwiseModularity(Graph<V,E> g,Transformer<V,M> moduleMembership,double gamma) {
+		double sum = 0;
+		double m2 = (double)(2*g.getEdgeCount());
+		for (V v1:g.getVertices()) {
+			for (V v2:g.getVertices()) {
+				if (moduleMembership.transform(v1).equals(moduleMembership.transform(v2))) {
+					sum = sum + (g.isNeighbor(v1,v2)?1:0) - gamma*(double)g.degree(v1)*(double)g.degree(v2)/m2;
+				}
+			}
+		}
+		return sum/m2;
+	}
+	
+	/**
+	 * Reference implementation of directed modularity: the pairwise sum from Leicht and Newman, O(|V|^2).
+	 */
+	private static <V,E,M> double computePairwiseDirectedModularity(DirectedGraph<V,E> g,Transformer<V,M> moduleMembership) {
+		double sum = 0;
+		double m = g.getEdgeCount();
+		for (V v1:g.getVertices()) {
+			for (V v2:g.getVertices()) {
+				if (moduleMembership.transform(v1).equals(moduleMembership.transform(v2))) {
+					sum = sum + (g.isSuccessor(v1,v2)?1:0) - (double)g.outDegree(v1)*(double)g.inDegree(v2)/m;
+				}
+			}
+		}
+		return sum/m;
+	}
+	
+	/**
+	 * The edge based computation must agree with the pairwise definition.
+	 * @throws Exception
+	 */
+	@Test
+	public void testUndirectedRandom() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,42);
+		double expected = computePairwiseModularity(g,componentMembership);
+		assertEquals(expected,Modularity.computeModularity(g, componentMembership),1e-9);
+	}
+	
+	/**
+	 * The edge based computation must agree with the pairwise definition.
+	 * @throws Exception
+	 */
+	@Test
+	public void testDirectedRandom() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,42);
+		double expected = computePairwiseModularity(g,componentMembership);
+		assertEquals(expected,Modularity.computeModularity(g, componentMembership),1e-9);
+	}
+	
+	/**
+	 * Computations on graph snapshots must agree with computations on the graph.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCompactGraph() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,7);
+		CompactGraph<String,String> snapshot = new CompactGraph<String,String>(g);
+		assertEquals(Modularity.computeModularity(g, componentMembership),Modularity.computeModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership),Modularity.computeMaxModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeScaledModularity(g, componentMembership),Modularity.computeScaledModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeModuleModularity(g, isInModule1),Modularity.computeModuleModularity(snapshot, isInModule1),1e-9);
+	}
+	
+	/**
+	 * Parallel computations must agree with sequential computations. 
+	 * The threshold is set to 0 to force the parallel path on a small graph.
+	 * @throws Exception
+	 */
+	@Test
+	public void testParallel() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,11);
+		CompactGraph<String,String> snapshot = new CompactGraph<String,String>(g);
+		ParallelModularity parallel = new ParallelModularity(null,0);
+		assertEquals(Modularity.computeModularity(g, componentMembership),parallel.computeModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership),parallel.computeMaxModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeScaledModularity(g, componentMembership),parallel.computeScaledModularity(snapshot, componentMembership),1e-9);
+		assertEquals(Modularity.computeModuleModularity(g, isInModule2),parallel.computeModuleModularity(snapshot, isInModule2),1e-9);
+		assertEquals(Modularity.computeModularity(g, componentMembership),Modularity.computeParallelModularity(snapshot, componentMembership, null),1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership),Modularity.computeParallelMaxModularity(snapshot, componentMembership, null),1e-9);
+		assertEquals(Modularity.computeModuleModularity(g, isInModule2),Modularity.computeParallelModuleModularity(snapshot, isInModule2, null),1e-9);
+	}
+	
+	/**
+	 * Per-module modularity computed in one pass, the sum is the modularity of the graph.
+	 * @throws Exception
+	 */
+	@Test
+	public void testModuleModularities() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,3);
+		Map<String,Double> modularities = Modularity.computeModuleModularities(g, componentMembership);
+		assertEquals(5,modularities.size());
+		double sum = 0;
+		for (double value:modularities.values()) {
+			sum = sum + value;
+		}
+		assertEquals(Modularity.computeModularity(g, componentMembership),sum,1e-9);
+		assertEquals(Modularity.computeModuleModularity(g, isInModule1),modularities.get("c1"),1e-9);
+		
+		Map<String,Double> top = Modularity.computeTopModuleModularities(g, componentMembership, 2);
+		Map<String,Double> bottom = Modularity.computeBottomModuleModularities(g, componentMembership, 2);
+		assertEquals(2,top.size());
+		assertEquals(2,bottom.size());
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+		for (double value:modularities.values()) {
+			max = Math.max(max,value);
+			min = Math.min(min,value);
+		}
+		assertEquals(max,top.values().iterator().next(),0);
+		assertEquals(min,bottom.values().iterator().next(),0);
+	}
+	
+	/**
+	 * With a cached membership, the membership function is invoked once per vertex, no matter how many metrics are computed.
+	 * @throws Exception
+	 */
+	@Test
+	public void testCachedMembership() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,5);
+		final int[] invocations = {0};
+		Transformer<String,String> countingMembership = new Transformer<String,String>() {
+			@Override
+			public String transform(String s) {
+				invocations[0] = invocations[0]+1;
+				return componentMembership.transform(s);
+			}
+		};
+		CachedMembership<String,String> cached = Modularity.cache(g,countingMembership);
+		double modularity = Modularity.computeModularity(g, cached);
+		double maxModularity = Modularity.computeMaxModularity(g, cached);
+		double scaledModularity = Modularity.computeScaledModularity(g, cached);
+		assertEquals(5,Modularity.getComponents(g, cached).size());
+		assertEquals(g.getVertexCount(),invocations[0]);
+		assertEquals(Modularity.computeModularity(g, componentMembership),modularity,1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership),maxModularity,1e-9);
+		assertEquals(Modularity.computeScaledModularity(g, componentMembership),scaledModularity,1e-9);
+		
+		// adding a vertex is detected, other changes require invalidation
+		g.addVertex("c5.v100");
+		assertEquals(6,Modularity.getComponents(g, cached).size());
+		cached.invalidate();
+		Modularity.computeModularity(g, cached);
+		assertEquals(3*g.getVertexCount()-1,invocations[0]);
+	}
+	
+	/**
+	 * Scenario with stronger (3) inter-component links, all metrics computed at once.
+	 * @throws Exception
+	 */
+	@Test
+	public void testReport() throws Exception {
+		
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		// edges within component 1
+		g.addEdge("c1.e12","c1.v1","c1.v2");
+		g.addEdge("c1.e23","c1.v2","c1.v3");
+		g.addEdge("c1.e31","c1.v3","c1.v1");
+		// edges within component 2
+		g.addEdge("c2.e12","c2.v1","c2.v2");
+		g.addEdge("c2.e23","c2.v2","c2.v3");
+		// inter-component edges
+		g.addEdge("e12-1","c1.v1","c2.v1");
+		g.addEdge("e12-2","c1.v2","c2.v2");
+		g.addEdge("e12-3","c1.v3","c2.v3");
+		
+		ModularityReport<String> report = Modularity.computeReport(g, componentMembership);
+		assertEquals(Modularity.computeModularity(g, componentMembership),report.getModularity(),1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership),report.getMaxModularity(),1e-9);
+		assertEquals(Modularity.computeScaledModularity(g, componentMembership),report.getScaledModularity(),1e-9);
+		assertEquals(2,report.getModuleCount());
+		assertEquals(3,report.getInternalEdgeCount("c1"));
+		assertEquals(2,report.getInternalEdgeCount("c2"));
+		assertEquals(3,report.getExternalEdgeCount("c1"));
+		assertEquals(3,report.getExternalEdgeCount("c2"));
+		assertEquals(0,report.getExternalEdgeCount("c3"));
+	}
+	
+	/**
+	 * Edge counts in reports are integers: reciprocal edges are two edges, a loop is one internal edge.
+	 * The counts do not depend on the mode, directed modularity counts arcs but reports count edges.
+	 * @throws Exception
+	 */
+	@Test
+	public void testReportEdgeCounts() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		g.addEdge("e1","c1.v1","c1.v2");
+		g.addEdge("e2","c1.v2","c1.v1");
+		g.addEdge("e3","c1.v1","c2.v1");
+		g.addEdge("e4","c2.v1","c2.v1");
+		List<ModularityReport<String>> reports = new ArrayList<ModularityReport<String>>();
+		reports.add(Modularity.computeReport(g, componentMembership));
+		reports.add(Modularity.computeReport(new CompactGraph<String,String>(g), componentMembership));
+		reports.add(Modularity.computeReport(g, componentMembership, Modularity.Mode.DIRECTED));
+		for (ModularityReport<String> report:reports) {
+			assertEquals(4,report.getEdgeCount());
+			assertEquals(2,report.getInternalEdgeCount("c1"));
+			assertEquals(1,report.getExternalEdgeCount("c1"));
+			assertEquals(1,report.getInternalEdgeCount("c2"));
+			assertEquals(1,report.getExternalEdgeCount("c2"));
+		}
+		assertEquals(Modularity.computeModularity(g, componentMembership),reports.get(0).getModularity(),1e-9);
+	}
+	
+	/**
+	 * Integer weights must give the same results as parallel edges, unit weights the same results as the unweighted computation.
+	 * @throws Exception
+	 */
+	@Test
+	public void testWeighted() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,13);
+		final java.util.Random random = new java.util.Random(42);
+		final Map<String,Integer> weights = new java.util.HashMap<String,Integer>();
+		Graph<String,String> multigraph = new UndirectedSparseMultigraph<String,String>();
+		for (String v:g.getVertices()) {
+			multigraph.addVertex(v);
+		}
+		for (String e:g.getEdges()) {
+			int weight = 1+random.nextInt(3);
+			weights.put(e,weight);
+			for (int i=0;i<weight;i++) {
+				multigraph.addEdge(e+"-"+i,g.getEndpoints(e));
+			}
+		}
+		Transformer<String,Integer> edgeWeights = new Transformer<String,Integer>() {
+			@Override
+			public Integer transform(String e) {
+				return weights.get(e);
+			}
+		};
+		Transformer<String,Double> unitWeights = new Transformer<String,Double>() {
+			@Override
+			public Double transform(String e) {
+				return 1.0;
+			}
+		};
+		// the snapshot counts every parallel edge
+		CompactGraph<String,String> snapshot = new CompactGraph<String,String>(multigraph);
+		assertEquals(Modularity.computeModularity(snapshot, componentMembership),Modularity.computeWeightedModularity(g, componentMembership, edgeWeights),1e-9);
+		assertEquals(Modularity.computeMaxModularity(snapshot, componentMembership),Modularity.computeWeightedMaxModularity(g, componentMembership, edgeWeights),1e-9);
+		assertEquals(Modularity.computeModuleModularity(snapshot, isInModule1),Modularity.computeWeightedModuleModularity(g, isInModule1, edgeWeights),1e-9);
+		assertEquals(Modularity.computeModularity(g, componentMembership),Modularity.computeWeightedModularity(g, componentMembership, unitWeights),1e-9);
+		assertEquals(Modularity.computeModuleModularity(g, isInModule2),Modularity.computeWeightedModuleModularity(g, isInModule2, unitWeights),1e-9);
+	}
+	
+	/**
+	 * Negative and NaN weights are rejected.
+	 * @throws Exception
+	 */
+	@Test
+	public void testInvalidWeights() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,13);
+		final String invalid = g.getEdges().iterator().next();
+		for (final double weight:new double[]{-1.0,Double.NaN}) {
+			Transformer<String,Double> edgeWeights = new Transformer<String,Double>() {
+				@Override
+				public Double transform(String e) {
+					return e.equals(invalid)?weight:1.0;
+				}
+			};
+			try {
+				Modularity.computeWeightedModularity(g, componentMembership, edgeWeights);
+				fail();
+			}
+			catch (IllegalArgumentException x) {
+				assertTrue(x.getMessage().contains(invalid));
+			}
+			try {
+				Modularity.computeWeightedModuleModularity(g, isInModule1, edgeWeights);
+				fail();
+			}
+			catch (IllegalArgumentException x) {
+				assertTrue(x.getMessage().contains(invalid));
+			}
+		}
+	}
+	
+	/**
+	 * Directed modularity must agree with the pairwise definition, and is selected automatically for directed graphs.
+	 * @throws Exception
+	 */
+	@Test
+	public void testDirectedMode() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,17);
+		double expected = computePairwiseDirectedModularity(g,componentMembership);
+		assertEquals(expected,Modularity.computeModularity(g, componentMembership, Modularity.Mode.DIRECTED),1e-9);
+		assertEquals(expected,Modularity.computeModularity(g, componentMembership, Modularity.Mode.AUTO),1e-9);
+		assertEquals(expected,Modularity.computeModularity(new CompactGraph<String,String>(g), componentMembership, Modularity.Mode.AUTO),1e-9);
+		assertEquals(Modularity.computeModularity(g, componentMembership),Modularity.computeModularity(g, componentMembership, Modularity.Mode.UNDIRECTED),1e-9);
+		double sum = 0;
+		for (double q:Modularity.computeModuleModularities(g, componentMembership, Modularity.Mode.AUTO).values()) {
+			sum = sum + q;
+		}
+		assertEquals(expected,sum,1e-9);
+		ModularityReport<String> report = Modularity.computeReport(g, componentMembership, Modularity.Mode.AUTO);
+		assertEquals(expected,report.getModularity(),1e-9);
+		assertEquals(Modularity.computeMaxModularity(g, componentMembership, Modularity.Mode.AUTO),report.getMaxModularity(),1e-9);
+		assertEquals(expected/report.getMaxModularity(),Modularity.computeScaledModularity(g, componentMembership, Modularity.Mode.AUTO),1e-9);
+
+		// for undirected graphs, both definitions agree
+		Graph<String,String> g2 = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g2,componentLabels,60,5,200,17);
+		expected = Modularity.computeModularity(g2, componentMembership);
+		assertEquals(expected,Modularity.computeModularity(g2, componentMembership, Modularity.Mode.AUTO),1e-9);
+		assertEquals(expected,Modularity.computeModularity(g2, componentMembership, Modularity.Mode.DIRECTED),1e-9);
+	}
+	
+	/**
+	 * Reciprocal edges connect two vertices once in the pairwise definition, all other methods count every edge.
+	 * @throws Exception
+	 */
+	@Test
+	public void testReciprocalEdges() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseGraph<String,String>();
+		g.addEdge("e1","c0.a","c0.b");
+		g.addEdge("e2","c0.b","c0.a");
+		g.addEdge("e3","c0.b","c1.c");
+		g.addEdge("e4","c1.c","c1.d");
+		assertEquals(-0.03125,Modularity.computePairwiseModularity(g, componentMembership),1e-9);
+		assertEquals(computePairwiseModularity(g, componentMembership),Modularity.computePairwiseModularity(g, componentMembership),1e-9);
+		assertEquals(0.21875,Modularity.computeModularity(g, componentMembership),1e-9);
+		assertEquals(0.21875,Modularity.computeModularity(g, componentMembership, Modularity.Mode.UNDIRECTED),1e-9);
+		assertEquals(0.21875,Modularity.computeModularity(new CompactGraph<String,String>(g), componentMembership),1e-9);
+	}
+	
+	/**
+	 * Both definitions on graphs with loops, parallel and reciprocal edges.
+	 * @throws Exception
+	 */
+	@Test
+	public void testMultigraph() throws Exception {
+		DirectedGraph<String,String> g = new DirectedSparseMultigraph<String,String>();
+		java.util.Random random = new java.util.Random(23);
+		for (int i=0;i<40;i++) {
+			g.addVertex("c"+(i%5)+".v"+i);
+		}
+		for (int e=0;e<150;e++) {
+			int i = random.nextInt(40);
+			int j = random.nextInt(4)==0?i:random.nextInt(40);
+			g.addEdge("e"+e,"c"+(i%5)+".v"+i,"c"+(j%5)+".v"+j);
+		}
+		assertEquals(computePairwiseModularity(g,componentMembership),Modularity.computePairwiseModularity(g, componentMembership),1e-9);
+		double expected = Modularity.computeModularity(g, componentMembership);
+		assertEquals(expected,Modularity.computeModularity(new CompactGraph<String,String>(g), componentMembership),1e-9);
+		double sum = 0;
+		for (double q:Modularity.computeModuleModularities(g, componentMembership).values()) {
+			sum = sum + q;
+		}
+		assertEquals(expected,sum,1e-9);
+		assertEquals(Modularity.computeModularity(g,new Transformer<String,Boolean>() {
+			@Override
+			public Boolean transform(String s) {
+				return isInModule1.evaluate(s);
+			}
+		}),Modularity.computeModuleModularity(g, isInModule1)+Modularity.computeModuleModularity(g, new Predicate<String>() {
+			@Override
+			public boolean evaluate(String s) {
+				return !isInModule1.evaluate(s);
+			}
+		}),1e-9);
+		assertEquals(Modularity.computeModularity(new CompactGraph<String,String>(g), componentMembership),Modularity.computeModularity(g, componentMembership, Modularity.Mode.UNDIRECTED),1e-9);
+	}
+	
+	/**
+	 * Modularity with a resolution parameter must agree with the pairwise definition, for one or several memberships.
+	 * @throws Exception
+	 */
+	@Test
+	public void testResolutionSweep() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,19);
+		Transformer<String,Integer> vertexMembership = new Transformer<String,Integer>() {
+			@Override
+			public Integer transform(String s) {
+				return Integer.parseInt(s.substring(s.indexOf(".v")+2))%7;
+			}
+		};
+		double[] resolutions = Modularity.getResolutions(0.0,2.0,21);
+		assertEquals(21,resolutions.length);
+		assertEquals(1.0,resolutions[10],1e-12);
+		double[] values = Modularity.computeModularities(g, componentMembership, resolutions);
+		for (int i=0;i<resolutions.length;i++) {
+			assertEquals(computePairwiseModularity(g, componentMembership, resolutions[i]),values[i],1e-9);
+		}
+		assertEquals(Modularity.computeModularity(g, componentMembership),values[10],1e-9);
+
+		CompactGraph<String,String> snapshot = new CompactGraph<String,String>(g);
+		List<Transformer<String,?>> memberships = new ArrayList<Transformer<String,?>>();
+		memberships.add(componentMembership);
+		memberships.add(vertexMembership);
+		double[][] batch = Modularity.computeModularities(snapshot, memberships, resolutions);
+		double[][] parallelBatch = Modularity.computeModularities(snapshot, memberships, resolutions, null);
+		for (int i=0;i<resolutions.length;i++) {
+			assertEquals(values[i],batch[0][i],1e-9);
+			assertEquals(computePairwiseModularity(g, vertexMembership, resolutions[i]),batch[1][i],1e-9);
+			assertEquals(batch[1][i],parallelBatch[1][i],0);
+		}
+	}
+	
+	/**
+	 * A single module has no community structure, for any resolution.
+	 * @throws Exception
+	 */
+	@Test
+	public void testResolutionSweepSingleModule() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		TestGraphs.buildModularGraph(g,componentLabels,60,5,200,19);
+		Transformer<String,String> singleModule = new Transformer<String,String>() {
+			@Override
+			public String transform(String s) {
+				return "c";
+			}
+		};
+		double[] resolutions = Modularity.getResolutions(0.0,2.0,21);
+		assertEquals(0,Modularity.computeModularity(g, singleModule),0);
+		double[] values = Modularity.computeModularities(g, singleModule, resolutions);
+		double[] snapshotValues = Modularity.computeModularities(new CompactGraph<String,String>(g), singleModule, resolutions);
+		for (int i=0;i<resolutions.length;i++) {
+			assertEquals(0,values[i],0);
+			assertEquals(0,snapshotValues[i],0);
+		}
+	}
+	
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.algorithms.metrics;
+
+import static org.junit.Assert.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularityTracker;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Unit tests for the modularity tracker.
+ * @author jens dietrich
+ */
+public class ModularityTrackerTest {
+
+	static double DELTA = 1e-9;
+
+	@Test
+	public void testSeed() throws Exception {
+		Graph<String,String> g = new UndirectedSparseGraph<String,String>();
+		g.addEdge("c1.e12","c1.v1","c1.v2");
+		g.addEdge("c1.e23","c1.v2","c1.v3");
+		g.addEdge("c1.e31","c1.v3","c1.v1");
+		g.addEdge("c2.e12","c2.v1","c2.v2");
+		g.addEdge("c2.e23","c2.v2","c2.v3");
+		g.addEdge("c2.e31","c2.v3","c2.v1");
+		g.addEdge("e12","c1.v1","c2.v1");
+		ModularityTracker<String,String> tracker = new ModularityTracker<String,String>(g,new Transformer<String,String>() {
+			@Override
+			public String transform(String s) {
+				return s.substring(0,s.indexOf('.'));
+			}
+		});
+		assertEquals(5.0/14.0,tracker.getModularity(),DELTA);
+		assertEquals(0.5,tracker.getMaxModularity(),DELTA);
+		assertEquals(10.0/14.0,tracker.getScaledModularity(),DELTA);
+
+		// remove the inter-component edge
+		assertTrue(tracker.removeEdge("c2.v1","c1.v1"));
+		assertFalse(tracker.removeEdge("c2.v1","c1.v1"));
+		assertEquals(1.0,tracker.getScaledModularity(),DELTA);
+	}
+
+	/**
+	 * Random updates, after each update the tracked modularity must be the same as the recomputed modularity.
+	 */
+	@Test
+	public void testRandomUpdates() throws Exception {
+		Random random = new Random(42);
+		Graph<Integer,String> g = new UndirectedSparseGraph<Integer,String>();
+		final Map<Integer,Integer> modules = new HashMap<Integer,Integer>();
+		for (int i=0;i<40;i++) {
+			g.addVertex(i);
+			modules.put(i,i%4);
+		}
+		for (int i=0;i<40;i++) {
+			g.addEdge(i+"-"+(i+1)%40,i,(i+1)%40);
+		}
+		Transformer<Integer,Integer> membership = new Transformer<Integer,Integer>() {
+			@Override
+			public Integer transform(Integer v) {
+				return modules.get(v);
+			}
+		};
+		ModularityTracker<Integer,Integer> tracker = new ModularityTracker<Integer,Integer>(g,membership);
+
+		for (int i=0;i<300;i++) {
+			int v1 = random.nextInt(40);
+			int v2 = random.nextInt(40);
+			int op = random.nextInt(3);
+			if (op==0 && v1!=v2 && g.findEdge(v1,v2)==null) {
+				g.addEdge(v1+"-"+v2,v1,v2);
+				tracker.addEdge(v1,v2);
+			}
+			else if (op==1 && v1!=v2 && g.findEdge(v1,v2)!=null) {
+				g.removeEdge(g.findEdge(v1,v2));
+				assertTrue(tracker.removeEdge(v1,v2));
+			}
+			else if (op==2) {
+				int module = random.nextInt(6);
+				modules.put(v1,module);
+				tracker.moveVertex(v1,module);
+			}
+			assertEquals(Modularity.computeModularity(g,membership),tracker.getModularity(),DELTA);
+			assertEquals(Modularity.computeMaxModularity(g,membership),tracker.getMaxModularity(),DELTA);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.io;
+
+import static org.junit.Assert.*;
+import java.io.File;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularityGain;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ModularityTracker;
+import nz.ac.massey.jung.contrib.algorithms.metrics.ParallelModularity;
+import nz.ac.massey.jung.contrib.graph.CompactGraph;
+import nz.ac.massey.jung.contrib.io.GraphFile;
+import nz.ac.massey.jung.contrib.io.GraphFiles;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import test.nz.ac.massey.jung.contrib.TestGraphs;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+/**
+ * Unit tests for memory mapped graph files, results are compared with the results computed for the jung graphs.
+ * @author jens dietrich
+ */
+public class GraphFileTest {
+
+	private Transformer<Integer,String> moduleMembership = new Transformer<Integer,String>() {
+		@Override
+		public String transform(Integer v) {
+			return "c" + (v%5);
+		}
+	};
+
+	private <V> GraphFile<String> write(Graph<V,Integer> g,Transformer<V,String> moduleMembership) throws Exception {
+		File file = File.createTempFile("graph",".gr");
+		file.deleteOnExit();
+		GraphFiles.writeGraph(g,moduleMembership,file);
+		return GraphFile.open(file);
+	}
+
+	private void compareModularity(Graph<Integer,Integer> g) throws Exception {
+		GraphFile<String> file = write(g,moduleMembership);
+		try {
+			assertEquals(g.getVertexCount(),file.getVertexCount());
+			assertEquals(g.getEdgeCount(),file.getEdgeCount());
+			assertTrue(file.hasModules());
+			assertEquals(5,file.getModuleCount());
+			assertEquals(Modularity.computeModularity(g,moduleMembership),Modularity.computeModularity(file),0.000001);
+			assertEquals(Modularity.computeMaxModularity(g,moduleMembership),Modularity.computeMaxModularity(file),0.000001);
+			Map<String,Double> expected = Modularity.computeModuleModularities(g,moduleMembership);
+			Map<String,Double> computed = Modularity.computeModuleModularities(file);
+			assertEquals(expected.keySet(),computed.keySet());
+			for (String module:expected.keySet()) {
+				assertEquals(expected.get(module),computed.get(module),0.000001);
+			}
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	@Test
+	public void testDirectedModularity() throws Exception {
+		compareModularity(TestGraphs.buildRandomGraph(new DirectedSparseGraph<Integer,Integer>(),200,600,42));
+	}
+
+	@Test
+	public void testUndirectedModularity() throws Exception {
+		compareModularity(TestGraphs.buildRandomGraph(new UndirectedSparseGraph<Integer,Integer>(),200,600,42));
+	}
+
+	/**
+	 * Graphs, graph snapshots, graph files and the incremental engines must agree on graphs with reciprocal edges.
+	 * @throws Exception
+	 */
+	@Test
+	public void testReciprocalEdges() throws Exception {
+		Graph<Integer,Integer> g = new DirectedSparseGraph<Integer,Integer>();
+		g.addEdge(1,0,5);
+		g.addEdge(2,5,0);
+		g.addEdge(3,1,6);
+		g.addEdge(4,0,1);
+		double expected = 0.21875;
+		assertEquals(expected,Modularity.computeModularity(g,moduleMembership),0.000001);
+		assertEquals(expected,Modularity.computeModularity(new CompactGraph<Integer,Integer>(g),moduleMembership),0.000001);
+		assertEquals(expected,new ParallelModularity().computeModularity(new CompactGraph<Integer,Integer>(g),moduleMembership),0.000001);
+		assertEquals(expected,new ModularityTracker<Integer,String>(g,moduleMembership).getModularity(),0.000001);
+		assertEquals(expected,new ModularityGain<Integer,String>(g,moduleMembership).getModularity(),0.000001);
+		GraphFile<String> file = write(g,moduleMembership);
+		try {
+			assertEquals(expected,Modularity.computeModularity(file),0.000001);
+		}
+		finally {
+			file.close();
+		}
+		// the pairwise definition connects 0 and 5 once
+		assertEquals(-0.03125,Modularity.computePairwiseModularity(g,moduleMembership),0.000001);
+	}
+
+	@Test
+	public void testLabels() throws Exception {
+		Graph<String,Integer> g = new DirectedSparseGraph<String,Integer>();
+		g.addEdge(1,"\u00e4","b");
+		g.addVertex("c");
+		GraphFile<String> file = write(g,null);
+		try {
+			assertFalse(file.hasModules());
+			assertNull(file.getModuleIds());
+			Set<String> vertices = new HashSet<String>();
+			for (int v=0;v<file.getVertexCount();v++) {
+				vertices.add(file.getVertex(v));
+			}
+			assertEquals(new HashSet<String>(g.getVertices()),vertices);
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	@Test
+	public void testComponents() throws Exception {
+		Graph<Integer,Integer> g = TestGraphs.buildRandomGraph(new DirectedSparseGraph<Integer,Integer>(),500,600,42);
+		TarjansAlgorithm<Integer,Integer> tarjan = new TarjansAlgorithm<Integer,Integer>();
+		tarjan.buildComponentGraph(g,null);
+		// files identify vertices by their labels
+		Set<Set<String>> expected = new HashSet<Set<String>>();
+		for (Set<Integer> component:tarjan.getComponentMembership().values()) {
+			Set<String> labels = new HashSet<String>();
+			for (Integer v:component) {
+				labels.add(String.valueOf(v));
+			}
+			expected.add(labels);
+		}
+		int edgeCount = tarjan.getCondensation().getEdgeCount();
+
+		GraphFile<String> file = write(g,null);
+		try {
+			TarjansAlgorithm<String,Integer> fileTarjan = new TarjansAlgorithm<String,Integer>();
+			fileTarjan.buildComponentGraph(file);
+			assertEquals(expected,new HashSet<Set<String>>(fileTarjan.getComponentMembership().values()));
+			assertEquals(edgeCount,fileTarjan.getCondensation().getEdgeCount());
+		}
+		finally {
+			file.close();
+		}
+	}
+}
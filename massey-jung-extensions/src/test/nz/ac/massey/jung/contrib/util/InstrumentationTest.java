@@ -0,0 +1,118 @@
+/*
+ * Copyright  2011 Jens Dietrich. All Rights Reserved.
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ * 3. The name of the author may not be used to endorse or promote products derived from this software without specific prior written permission.
+ * THIS SOFTWARE IS PROVIDED BY JENS DIETRICH "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package test.nz.ac.massey.jung.contrib.util;
+
+import static org.junit.Assert.*;
+import nz.ac.massey.jung.contrib.algorithms.cluster.TarjansAlgorithm;
+import nz.ac.massey.jung.contrib.algorithms.metrics.Modularity;
+import nz.ac.massey.jung.contrib.util.Histogram;
+import nz.ac.massey.jung.contrib.util.Instrumentation;
+import nz.ac.massey.jung.contrib.util.MetricsSink;
+import org.apache.commons.collections15.Predicate;
+import org.apache.commons.collections15.Transformer;
+import org.junit.Test;
+import edu.uci.ics.jung.graph.DirectedGraph;
+import edu.uci.ics.jung.graph.DirectedSparseGraph;
+
+/**
+ * Unit tests for instrumentation, checks the measurements reported by the algorithms to an in-memory sink.
+ * @author jens dietrich
+ */
+public class InstrumentationTest {
+
+	private DirectedGraph<Integer,String> buildChain(int size) {
+		DirectedGraph<Integer,String> g = new DirectedSparseGraph<Integer,String>();
+		for (int i=0;i<size-1;i++) {
+			g.addEdge(i+"-"+(i+1),i,i+1);
+		}
+		return g;
+	}
+
+	@Test
+	public void testHistogram() throws Exception {
+		Histogram histogram = new Histogram();
+		assertEquals(0,histogram.getPercentile(50));
+		for (int i=1;i<=100;i++) {
+			histogram.record(i);
+		}
+		assertEquals(100,histogram.getCount());
+		assertEquals(5050,histogram.getSum());
+		assertEquals(1,histogram.getMin());
+		assertEquals(100,histogram.getMax());
+		// the median 50 is in bucket [32,64)
+		assertEquals(63,histogram.getPercentile(50));
+		assertEquals(100,histogram.getPercentile(100));
+		assertEquals(1,histogram.getBucketCount(1));
+		histogram.reset();
+		assertEquals(0,histogram.getCount());
+	}
+
+	@Test
+	public void testTarjan() throws Exception {
+		MetricsSink sink = new MetricsSink();
+		Instrumentation.setListener(sink);
+		try {
+			DirectedGraph<Integer,String> g = buildChain(100);
+			g.addEdge("99-0",99,0);
+			TarjansAlgorithm<Integer,String> tarjan = new TarjansAlgorithm<Integer,String>();
+			tarjan.buildComponentGraph(g,new Predicate<String>() {
+				@Override
+				public boolean evaluate(String e) {
+					return !e.equals("49-50");
+				}
+			});
+			assertEquals(100,sink.getCounter("tarjan.vertices"));
+			assertEquals(99,sink.getCounter("tarjan.edges"));
+			assertEquals(100,sink.getCounter("tarjan.predicate"));
+			// the filter breaks the cycle, the search starting at 0 stops at 49
+			assertEquals(100,sink.getCounter("tarjan.components"));
+			assertEquals(50,sink.getHistogram("tarjan.stackDepth").getMax());
+			assertEquals(1,sink.getHistogram("tarjan.search").getCount());
+			assertEquals(1,sink.getHistogram("tarjan.condensation").getCount());
+			assertEquals(1,sink.getHistogram("tarjan.adjacency").getCount());
+		}
+		finally {
+			Instrumentation.setListener(null);
+		}
+		assertFalse(Instrumentation.isEnabled());
+	}
+
+	@Test
+	public void testModularity() throws Exception {
+		MetricsSink sink = new MetricsSink();
+		Instrumentation.setListener(sink);
+		try {
+			DirectedGraph<Integer,String> g = buildChain(100);
+			Transformer<Integer,Integer> membership = new Transformer<Integer,Integer>() {
+				@Override
+				public Integer transform(Integer v) {
+					return v/10;
+				}
+			};
+			Modularity.computeModularity(g,membership);
+			assertEquals(100,sink.getCounter("modularity.transformer"));
+			assertEquals(99,sink.getCounter("modularity.edges"));
+
+			// a cached membership is resolved only once
+			sink.reset();
+			Transformer<Integer,Integer> cached = Modularity.cache(g,membership);
+			Modularity.computeModularity(g,cached);
+			Modularity.computeMaxModularity(g,cached);
+			assertEquals(100,sink.getCounter("modularity.transformer"));
+			assertEquals(198,sink.getCounter("modularity.edges"));
+			assertEquals(1,sink.getHistogram("modularity.membership").getCount());
+			assertEquals(2,sink.getHistogram("modularity.edgePass").getCount());
+			assertTrue(sink.toString().contains("modularity.edges: 198"));
+		}
+		finally {
+			Instrumentation.setListener(null);
+		}
+	}
+}